@@ -1,21 +1,36 @@
 package io.klerch.alexa.utterances.console;
 
+import io.klerch.alexa.utterances.formatter.CompositeFormatter;
 import io.klerch.alexa.utterances.formatter.PlainFormatter;
+import io.klerch.alexa.utterances.formatter.ShardedJsonFormatter;
 import io.klerch.alexa.utterances.formatter.Formatter;
 import io.klerch.alexa.utterances.formatter.JsonFormatter;
 import io.klerch.alexa.utterances.model.Generation;
+import io.klerch.alexa.utterances.model.GenerationPlan;
+import io.klerch.alexa.utterances.model.GenerationProfile;
+import io.klerch.alexa.utterances.model.ListSampleStore;
+import io.klerch.alexa.utterances.model.SpillingSampleStore;
+import io.klerch.alexa.utterances.model.TrieSampleStore;
 import io.klerch.alexa.utterances.output.ConsoleOutputWriter;
 import io.klerch.alexa.utterances.output.FileOutputWriter;
+import io.klerch.alexa.utterances.output.GzipOutputWriter;
 import io.klerch.alexa.utterances.output.OutputWriter;
 import io.klerch.alexa.utterances.processor.Generator;
+import io.klerch.alexa.utterances.util.ValuesCatalog;
+import io.klerch.alexa.utterances.util.ValuesFileCache;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -23,6 +38,11 @@ import java.util.List;
  */
 @CommandLine.Command(name = "alexa-generate.jar", mixinStandardHelpOptions = true, version= { "----------------------", "Alexa Schema Generator v2.0.0", "Kay Lerch (2018)", "https://github.com/KayLerch/alexa-utterance-generator", "----------------------" })
 public class Console implements Runnable {
+    /**
+     * Number of grammar lines, placeholders and values files listed in the profiling report
+     */
+    private static final int PROFILE_TOP_ENTRIES = 10;
+
     /**
      * File reference for grammar specification. Mandatory.
      */
@@ -53,26 +73,157 @@ public class Console implements Runnable {
     @CommandLine.Option(names = { "-p", "--plain" }, description = "Writes plain output instead of JSON schema. Good for reviewing output.")
     private boolean plainFormat = false;
 
+    /**
+     * Writes JSON schema without indentation
+     */
+    @CommandLine.Option(names = { "--compact" }, description = "Writes JSON schema without line-breaks and indentation. Makes output a lot smaller.")
+    private boolean compact = false;
+
+    /**
+     * Additional outputs written from the same generation
+     */
+    @CommandLine.Option(names = { "-o", "--output" }, paramLabel = "FORMAT[=FILE]", description = "Writes another output from the same generation. FORMAT is json, compact or plain. Output goes to FILE or to console if no file is given. Repeat for more outputs.")
+    private List<String> outputs = new ArrayList<>();
+
+    /**
+     * Writes JSON schema as shards into a folder and a manifest to the output file
+     */
+    @CommandLine.Option(names = { "--shards" }, paramLabel = "PATH/to/folder", description = "Writes JSON schema in parts (shards) to the given folder and a manifest with counts, sizes and checksums of all shards to the output file.")
+    private Path shardDirectory;
+
+    @CommandLine.Option(names = { "--shard-bytes" }, paramLabel = "N", description = "Maximum size of a shard in bytes with --shards. Larger intents get split up. Defaults to 64 MB.")
+    private long shardBytes = 64L << 20;
+
+    @CommandLine.Option(names = { "--shard-by-intent" }, description = "Writes each intent to a shard of its own with --shards.")
+    private boolean shardByIntent = false;
+
+    /**
+     * Compresses the output file with gzip
+     */
+    @CommandLine.Option(names = { "--gzip" }, description = "Compresses the output file with gzip on as many threads as given with --threads.")
+    private boolean gzip = false;
+
+    @CommandLine.Option(names = { "--gzip-level" }, paramLabel = "N", description = "Compression level from 1 (fastest) to 9 (smallest) with --gzip. Defaults to 6.")
+    private int gzipLevel = 6;
+
+    @CommandLine.Option(names = { "--gzip-block-bytes" }, paramLabel = "N", description = "Number of bytes compressed at once with --gzip. Defaults to 1 MB.")
+    private int gzipBlockBytes = 1 << 20;
+
     /**
      * Prints output in plain format rather than printing as JSON schema
      */
     @CommandLine.Option(names = { "-r", "--repl" }, description = "Write down grammar specification line by line in your console. Type 'generate!' to generate the schema.")
     private boolean repl = false;
 
+    /**
+     * Number of threads used to generate, sort and validate sample utterances
+     */
+    @CommandLine.Option(names = { "-t", "--threads" }, paramLabel = "N", description = "Number of threads used to generate, sort and validate sample utterances. Defaults to 1.")
+    private int threads = 1;
+
+    /**
+     * Prints number of sample utterances and estimated output size rather than generating the schema
+     */
+    @CommandLine.Option(names = { "-c", "--count" }, description = "Counts sample utterances and estimates output size per intent without generating them.")
+    private boolean count = false;
+
+    /**
+     * Prints measurements per grammar line and placeholder after generation
+     */
+    @CommandLine.Option(names = { "--profile" }, description = "Reports which grammar lines, placeholders and values files multiply sample utterances and generation time the most.")
+    private boolean profile = false;
+
+    /**
+     * Generates pairwise coverage of placeholder values rather than all permutations
+     */
+    @CommandLine.Option(names = { "--pairwise" }, description = "Generates a reduced set of sample utterances in which every value of a placeholder and every pair of values of two placeholders in a line occurs at least once.")
+    private boolean pairwise = false;
+
+    /**
+     * Validates overlaps between intents on the grammar rather than on generated sample utterances
+     */
+    @CommandLine.Option(names = { "--symbolic-validation" }, description = "Looks for sample utterances shared by two intents on the grammar before generating any sample utterance. Much faster for large grammars.")
+    private boolean symbolicValidation = false;
+
+    /**
+     * Keeps sample utterances in a trie rather than a list
+     */
+    @CommandLine.Option(names = { "--trie" }, description = "Keeps sample utterances in a trie sharing common prefixes. Needs less memory for sample utterances starting alike.")
+    private boolean trie = false;
+
+    /**
+     * Writes sample utterances to disk once there are too many of them in memory
+     */
+    @CommandLine.Option(names = { "--spill" }, paramLabel = "N", description = "Keeps at most N sample utterances per intent in memory and writes the rest to temporary files. Sorting and deduplication happens on disk.")
+    private int spill = 0;
+
+    /**
+     * Draws sample utterances at random rather than generating all of them
+     */
+    @CommandLine.Option(names = { "--sample" }, paramLabel = "N", description = "Draws N sample utterances per intent uniformly at random instead of generating all of them.")
+    private long sampleSize = Long.MAX_VALUE;
+
+    @CommandLine.Option(names = { "--seed" }, paramLabel = "S", description = "Seed for drawing sample utterances with --sample. Same seed gives the same sample utterances. Defaults to 0.")
+    private long seed = 0;
+
+    /**
+     * Limits checked before generating any sample utterance
+     */
+    @CommandLine.Option(names = { "--max-utterances" }, paramLabel = "N", description = "Stops before generation if your grammar results in more than N sample utterances.")
+    private long maxUtterances = Long.MAX_VALUE;
+
+    @CommandLine.Option(names = { "--max-intent-utterances" }, paramLabel = "N", description = "Stops before generation if one of your intents results in more than N sample utterances.")
+    private long maxUtterancesPerIntent = Long.MAX_VALUE;
+
+    @CommandLine.Option(names = { "--max-bytes" }, paramLabel = "N", description = "Stops before generation if sample utterances in the schema are estimated to exceed N bytes.")
+    private long maxBytes = Long.MAX_VALUE;
+
+    /**
+     * Compiles values files to catalogs rather than generating the schema
+     */
+    @CommandLine.Option(names = { "--compile-values" }, description = "Compiles all values files in the values folder to binary catalogs (*.catalog) which load a lot faster than values files. Catalogs are used as long as they are newer than their values files.")
+    private boolean compileValues = false;
+
     @Override
     public void run() {
         final Path grammarAbsoluteFilePath = grammarFile != null ? grammarFile.toPath().toAbsolutePath().getParent() : Paths.get("").toAbsolutePath();
         final Path valuesAbsoluteFilePath = (valuesFilePath != null) ? valuesFilePath.toAbsolutePath() : grammarAbsoluteFilePath;
-        final OutputWriter outputWriter = !dryRun && !repl ?
+        final OutputWriter outputWriter = !dryRun && !repl ? gzip ?
+                (outputFile != null ? new GzipOutputWriter(outputFile) : new GzipOutputWriter(grammarAbsoluteFilePath))
+                        .withLevel(gzipLevel)
+                        .withBlockSize(gzipBlockBytes)
+                        .withParallelism(threads) :
                 (outputFile != null ? new FileOutputWriter(outputFile) : new FileOutputWriter(grammarAbsoluteFilePath)) : new ConsoleOutputWriter();
 
-        final Formatter formatter = !plainFormat ?
-                JsonFormatter.create(outputWriter).build() :
-                PlainFormatter.create(outputWriter)
-                        .displayIntent(PlainFormatter.INTENT_DISPLAY_OPTION.ONCE_ON_TOP)
-                        .displaySlotType(PlainFormatter.SLOT_TYPE_DISPLAY_OPTION.ID_AND_VALUES)
-                        .displayInvocationName(true)
-                        .build();
+        final Formatter formatter = shardDirectory != null ?
+                ShardedJsonFormatter.create(outputWriter, shardDirectory.toAbsolutePath())
+                        .withMaxShardBytes(shardBytes)
+                        .shardByIntent(shardByIntent)
+                        .withParallelism(threads)
+                        .build() : !plainFormat ?
+                JsonFormatter.create(outputWriter).compact(compact).build() : plainFormatter(outputWriter);
+        // additional outputs are written concurrently from the same generation
+        final CompositeFormatter.CompositeFormatterBuilder formatters = CompositeFormatter.create().withFormatter(formatter);
+        outputs.forEach(output -> formatters.withFormatter(formatter(output)));
+
+        final Generator.GeneratorBuilder generator = Generator.create()
+                .withFormatter(outputs.isEmpty() ? formatter : formatters.build())
+                .withValuesFilePath(valuesAbsoluteFilePath)
+                .withParallelism(threads)
+                .withMaxUtterances(maxUtterances)
+                .withMaxUtterancesPerIntent(maxUtterancesPerIntent)
+                .withMaxBytes(maxBytes)
+                .withSampleSize(sampleSize)
+                .withSeed(seed)
+                .enablePairwise(pairwise)
+                .enableSymbolicValidation(symbolicValidation)
+                .withSampleStore(spill > 0 ? () -> new SpillingSampleStore(spill) : trie ? TrieSampleStore::new : ListSampleStore::new)
+                .enableProfiling(profile);
+
+        if (compileValues) {
+            compileValues(valuesAbsoluteFilePath);
+            return;
+        }
 
         if (repl) {
             Validate.isTrue(grammarFile == null, "Input grammar file references are not allowed in REPL input mode.");
@@ -85,16 +236,19 @@ public class Console implements Runnable {
                 lines.add(System.console().readLine());
             } while (!StringUtils.equalsIgnoreCase("generate!", lines.get(lines.size()-1)));
 
-            final Generation generation = Generator.create()
-                    .withFormatter(formatter)
-                    .withValuesFilePath(valuesAbsoluteFilePath)
-                    .build()
-                    .generate(lines.subList(0, Math.max(0, lines.size() - 1)));
+            if (count) {
+                print(generator.build().count(lines.subList(0, Math.max(0, lines.size() - 1))));
+                return;
+            }
+
+            try (final Generation generation = generator.build().generate(lines.subList(0, Math.max(0, lines.size() - 1)))) {
+                if (profile) print(generation.getProfile());
 
-            System.out.print("Do you want to save the output as JSON schema to your file system? (Y/n): ");
-            if (System.console().readLine().equals("Y")) {
-                final OutputWriter outputWriter1 = (outputFile != null ? new FileOutputWriter(outputFile) : new FileOutputWriter(grammarAbsoluteFilePath));
-                JsonFormatter.create(outputWriter1).build().print(generation);
+                System.out.print("Do you want to save the output as JSON schema to your file system? (Y/n): ");
+                if (System.console().readLine().equals("Y")) {
+                    final OutputWriter outputWriter1 = (outputFile != null ? new FileOutputWriter(outputFile) : new FileOutputWriter(grammarAbsoluteFilePath));
+                    JsonFormatter.create(outputWriter1).compact(compact).build().print(generation);
+                }
             }
         }
         else {
@@ -102,15 +256,99 @@ public class Console implements Runnable {
             Validate.isTrue(grammarFile.exists(), "Grammar file does not exist at " + grammarFile.getAbsolutePath());
             Validate.isTrue(grammarFile.canRead(), "Grammar file cannot be read at " + grammarFile.getAbsolutePath() + " due to insufficient permissions.");
 
-            Generator.create()
-                    .withGrammarFile(grammarFile)
-                    .withFormatter(formatter)
-                    .withValuesFilePath(valuesAbsoluteFilePath)
-                    .build()
-                    .generate();
+            if (count) {
+                print(generator.withGrammarFile(grammarFile).build().count());
+            } else if (profile) {
+                try (final Generation generation = generator.withGrammarFile(grammarFile).build().generate(Files.newBufferedReader(grammarFile.toPath(), Charset.defaultCharset()))) {
+                    print(generation.getProfile());
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            } else {
+                generator.withGrammarFile(grammarFile).build().generate();
+            }
         }
     }
 
+    /**
+     * Compiles all values files in a folder to catalogs and prints what was compiled to console
+     * @param valuesPath folder of values files
+     */
+    private void compileValues(final Path valuesPath) {
+        System.out.println("----------------------");
+        try (final DirectoryStream<Path> valuesFiles = Files.newDirectoryStream(valuesPath, "*.values")) {
+            for (final Path valuesFile : valuesFiles) {
+                final long start = System.nanoTime();
+                final Path catalogFile = ValuesCatalog.compile(valuesFile);
+                System.out.println(String.format("Compiled %s to %s with %d values in %.2f ms.", valuesFile.getFileName(), catalogFile.getFileName(), ValuesCatalog.load(catalogFile).size(), (System.nanoTime() - start) / 1000000.00));
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        System.out.println("----------------------");
+    }
+
+    /**
+     * Creates a formatter writing an additional output
+     * @param output format optionally followed by = and the file to write to
+     * @return formatter with its own output writer
+     */
+    private Formatter formatter(final String output) {
+        final String format = StringUtils.substringBefore(output, "=");
+        Validate.isTrue(Arrays.asList("json", "compact", "plain").contains(format), "Unknown output format '" + format + "'. Use json, compact or plain.");
+        final OutputWriter writer = output.contains("=") ? new FileOutputWriter(new File(StringUtils.substringAfter(output, "="))) : new ConsoleOutputWriter();
+        return format.equals("plain") ? plainFormatter(writer) : JsonFormatter.create(writer).compact(format.equals("compact")).build();
+    }
+
+    private static Formatter plainFormatter(final OutputWriter writer) {
+        return PlainFormatter.create(writer)
+                .displayIntent(PlainFormatter.INTENT_DISPLAY_OPTION.ONCE_ON_TOP)
+                .displaySlotType(PlainFormatter.SLOT_TYPE_DISPLAY_OPTION.ID_AND_VALUES)
+                .displayInvocationName(true)
+                .build();
+    }
+
+    /**
+     * Prints expected output per intent to console
+     * @param plan expected output of the generation
+     */
+    private void print(final GenerationPlan plan) {
+        System.out.println("----------------------");
+        plan.getIntents().forEach(intent -> {
+            System.out.println(String.format("%s: %d utterances from %d lines (%.2f KB)", intent.getName(), intent.getNumberOfUtterances(), intent.getNumberOfTemplates(), intent.getEstimatedBytes() / 1024.00));
+        });
+        System.out.println("----------------------");
+        System.out.println(String.format("Counted %d utterances in %d intents (%.2f KB).", plan.getNumberOfUtterances(), plan.getIntents().size(), plan.getEstimatedBytes() / 1024.00));
+        System.out.println("----------------------");
+    }
+
+    /**
+     * Prints grammar lines and placeholders multiplying sample utterances and generation time the most to console
+     * @param profile measurements taken during generation
+     */
+    private void print(final GenerationProfile profile) {
+        System.out.println(String.format("Generated %d utterances in %.2f ms.", profile.getNumberOfUtterances(), profile.getNanos() / 1000000.00));
+        System.out.println("----------------------");
+        System.out.println("Most expensive lines:");
+        profile.getLines().stream().limit(PROFILE_TOP_ENTRIES).forEach(line -> {
+            System.out.println(String.format("%5.1f%% utterances %5.1f%% time  %s: %s", line.getShareOfUtterances() * 100, line.getShareOfTime() * 100, line.getIntentName(), line.getLine()));
+        });
+        System.out.println("----------------------");
+        System.out.println("Most multiplying placeholders:");
+        profile.getPlaceholders().stream().limit(PROFILE_TOP_ENTRIES).forEach(placeholder -> {
+            System.out.println(String.format("%5.1f%% utterances %5.1f%% time  %s (%s) with %d values in %d lines adds %d utterances", placeholder.getShareOfUtterances() * 100, placeholder.getShareOfTime() * 100,
+                    placeholder.getName(), placeholder.getSource(), placeholder.getNumberOfValues(), placeholder.getNumberOfLines(), placeholder.getExcessUtterances()));
+        });
+        System.out.println("----------------------");
+        System.out.println("Most multiplying values files:");
+        profile.getValuesFiles().stream().limit(PROFILE_TOP_ENTRIES).forEach(placeholder -> {
+            System.out.println(String.format("%s with %d values in %d lines adds %d utterances", placeholder.getSource(), placeholder.getNumberOfValues(), placeholder.getNumberOfLines(), placeholder.getExcessUtterances()));
+        });
+        final ValuesFileCache cache = ValuesFileCache.getShared();
+        System.out.println(String.format("Values files cache: %d hits, %d misses, %d evictions (%d files, %.2f KB)", cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.size(), cache.getBytes() / 1024.00));
+        System.out.println("----------------------");
+    }
+
     /**
      * Entrance
      * @param args commandline arguments. Set -help flag to learn more.
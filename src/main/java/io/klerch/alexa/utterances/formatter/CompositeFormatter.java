@@ -0,0 +1,82 @@
+package io.klerch.alexa.utterances.formatter;
+
+import io.klerch.alexa.utterances.model.Generation;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Passes one generation on to several formatters, e.g. a JSON schema to file and a plain review to console. Formatters
+ * run concurrently on threads of their own, each writing to its own output writer and sink, so a slow output does not
+ * hold up the others. The generation is read but never changed by formatters, so they can share it.
+ */
+public class CompositeFormatter implements Formatter {
+    private final List<Formatter> formatters;
+
+    private CompositeFormatter(final CompositeFormatterBuilder builder) {
+        this.formatters = new ArrayList<>(builder.formatters);
+    }
+
+    /**
+     * Prints the generation with all formatters and waits for all of them to finish. If formatters fail, the others
+     * still finish before the first failure is thrown.
+     * @param generation result set object
+     */
+    @Override
+    public void print(final Generation generation) {
+        if (formatters.size() == 1) {
+            formatters.get(0).print(generation);
+            return;
+        }
+        final ForkJoinPool pool = new ForkJoinPool(formatters.size());
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            formatters.forEach(formatter -> tasks.add(pool.submit(() -> formatter.print(generation))));
+            RuntimeException failure = null;
+            for (final Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (final ExecutionException e) {
+                    if (failure == null) failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                }
+            }
+            if (failure != null) throw failure;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static CompositeFormatterBuilder create() {
+        return new CompositeFormatterBuilder();
+    }
+
+    public static class CompositeFormatterBuilder {
+        private final List<Formatter> formatters = new ArrayList<>();
+
+        CompositeFormatterBuilder() {
+        }
+
+        /**
+         * Adds a formatter which gets the generation together with all formatters added before
+         * @param formatter formatter with its own output writer
+         * @return composite formatter builder
+         */
+        public CompositeFormatterBuilder withFormatter(final Formatter formatter) {
+            this.formatters.add(formatter);
+            return this;
+        }
+
+        public CompositeFormatter build() {
+            Validate.notEmpty(formatters, "At least one formatter is required.");
+            Validate.noNullElements(formatters, "Formatter must not be null.");
+            return new CompositeFormatter(this);
+        }
+    }
+}
@@ -1,37 +1,81 @@
 package io.klerch.alexa.utterances.formatter;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.io.IOContext;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import io.klerch.alexa.utterances.model.Generation;
+import io.klerch.alexa.utterances.model.Intent;
+import io.klerch.alexa.utterances.model.SlotType;
 import io.klerch.alexa.utterances.output.OutputWriter;
+import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
-import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
 
 public class JsonFormatter implements Formatter {
+    /**
+     * Object mapper is expensive to create and thread-safe once configured, so it is shared by all formatters
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.WRAP_ROOT_VALUE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writer(new PrettyPrinter());
+    private static final ObjectWriter COMPACT_WRITER = MAPPER.writer();
+    private static final String LINE_FEED = DefaultIndenter.SYS_LF;
     private final OutputWriter writer;
+    private final ObjectWriter objectWriter;
+    /**
+     * Writes intents and slot types on their own, i.e. without root name
+     */
+    private final ObjectWriter fragmentWriter;
+    /**
+     * Serialized intents and slot types of the latest output by fingerprint and nesting level. Null if caching is disabled.
+     */
+    private volatile Map<String, String> fragments;
 
     private JsonFormatter(final JsonFormatterBuilder builder) {
         this.writer = builder.writer;
+        this.fragmentWriter = (builder.compact ? COMPACT_WRITER : PRETTY_WRITER).without(SerializationFeature.WRAP_ROOT_VALUE);
+        if (builder.cacheFragments) {
+            // a mapper of its own which looks up intents and slot types in the cache of this formatter
+            final SimpleModule module = new SimpleModule()
+                    .addSerializer(Intent.class, new FragmentSerializer<>(Intent.class, "intent", Intent::getFingerprint))
+                    .addSerializer(SlotType.class, new FragmentSerializer<>(SlotType.class, "type", SlotType::getFingerprint));
+            final ObjectMapper mapper = new ObjectMapper()
+                    .enable(SerializationFeature.WRAP_ROOT_VALUE)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .registerModule(module);
+            this.objectWriter = builder.compact ? mapper.writer() : mapper.writer(new PrettyPrinter());
+            this.fragments = new HashMap<>();
+        } else {
+            this.objectWriter = builder.compact ? COMPACT_WRITER : PRETTY_WRITER;
+        }
     }
 
+    /**
+     * Serializes the model straight into the output writer without building up the schema as one string. With
+     * fragment caching only intents and slot types which changed since the last call get serialized.
+     * @param generation result set object
+     */
     @Override
     public void print(final Generation generation) {
-        try {
-            final String schema = new ObjectMapper(new Factory())
-                    .enable(SerializationFeature.INDENT_OUTPUT)
-                    .enable(SerializationFeature.WRAP_ROOT_VALUE)
-                    .writeValueAsString(generation.getModel());
-            writer.print(schema, generation);
-        } catch (final JsonProcessingException e) {
-            throw new RuntimeException(e);
+        if (fragments == null) {
+            writer.print(out -> objectWriter.writeValue(out, generation.getModel()), generation);
+            return;
         }
+        final Map<String, String> used = new ConcurrentHashMap<>();
+        writer.print(out -> objectWriter.withAttribute(FragmentSerializer.class, used).writeValue(out, generation.getModel()), generation);
+        // keep what the latest output consists of, so the cache does not grow with every change
+        fragments = used;
     }
 
     public static JsonFormatterBuilder create(final OutputWriter writer) {
@@ -40,11 +84,35 @@ public class JsonFormatter implements Formatter {
 
     public static class JsonFormatterBuilder {
         private OutputWriter writer;
+        private boolean compact = false;
+        private boolean cacheFragments = false;
 
         JsonFormatterBuilder(final OutputWriter writer) {
             this.writer = writer;
         }
 
+        /**
+         * Writes the schema without line-breaks and indentation. Default is false.
+         * @param compact true for compact output
+         * @return json formatter builder
+         */
+        public JsonFormatterBuilder compact(final boolean compact) {
+            this.compact = compact;
+            return this;
+        }
+
+        /**
+         * Keeps the JSON of each intent and slot type and reuses it in the next output if the intent was generated from
+         * the same templates and the slot type got the same values. Speeds up repeated generation of a grammar with few
+         * changes in between at the cost of holding the serialized schema in memory. Default is false.
+         * @param cacheFragments true to cache serialized intents and slot types
+         * @return json formatter builder
+         */
+        public JsonFormatterBuilder cacheFragments(final boolean cacheFragments) {
+            this.cacheFragments = cacheFragments;
+            return this;
+        }
+
         public JsonFormatter build() {
             return new JsonFormatter(this);
         }
@@ -53,21 +121,69 @@ public class JsonFormatter implements Formatter {
     /**
      * Custom pretty printer for JSON to print array items in separated lines
      */
-    private static class PrettyPrinter extends DefaultPrettyPrinter {
-        public static final PrettyPrinter instance = new PrettyPrinter();
-
+    static class PrettyPrinter extends DefaultPrettyPrinter {
         PrettyPrinter() {
             _arrayIndenter = DefaultIndenter.SYSTEM_LINEFEED_INSTANCE;
         }
+
+        private PrettyPrinter(final PrettyPrinter base) {
+            super(base);
+        }
+
+        /**
+         * Pretty printer keeps track of nesting, so each generator gets its own copy
+         * @return new pretty printer
+         */
+        @Override
+        public PrettyPrinter createInstance() {
+            return new PrettyPrinter(this);
+        }
+
+        /**
+         * Returns the number of objects and arrays the generator is in
+         * @return nesting level
+         */
+        int getNesting() {
+            return _nesting;
+        }
     }
 
     /**
-     * Custom JsonFactory to set custom pretty printer
+     * Writes intents and slot types from cached JSON. Missing ones are serialized on their own and indented as if they
+     * were serialized in place, so output is identical to serializing the whole model at once.
      */
-    private static class Factory extends JsonFactory {
+    private class FragmentSerializer<T> extends StdSerializer<T> {
+        private static final long serialVersionUID = 1L;
+        private final String kind;
+        private final ToLongFunction<T> fingerprint;
+
+        private FragmentSerializer(final Class<T> type, final String kind, final ToLongFunction<T> fingerprint) {
+            super(type);
+            this.kind = kind;
+            this.fingerprint = fingerprint;
+        }
+
         @Override
-        protected JsonGenerator _createGenerator(final Writer out, final IOContext ctxt) throws IOException {
-            return super._createGenerator(out, ctxt).setPrettyPrinter(PrettyPrinter.instance);
+        @SuppressWarnings("unchecked")
+        public void serialize(final T value, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+            final int nesting = generator.getPrettyPrinter() instanceof PrettyPrinter ? ((PrettyPrinter) generator.getPrettyPrinter()).getNesting() : 0;
+            final long valueFingerprint = fingerprint.applyAsLong(value);
+            final String key = kind + ":" + Long.toHexString(valueFingerprint) + ":" + nesting;
+            String fragment = valueFingerprint != 0 ? fragments.get(key) : null;
+            if (fragment == null) {
+                fragment = indent(fragmentWriter.writeValueAsString(value), nesting);
+            }
+            if (valueFingerprint != 0) ((Map<String, String>) provider.getAttribute(FragmentSerializer.class)).put(key, fragment);
+            generator.writeRawValue(fragment);
+        }
+
+        /**
+         * Moves JSON serialized at nesting level 0 to the given nesting level. Strings in JSON never contain line-breaks,
+         * so every line-break is followed by indentation.
+         */
+        private String indent(final String json, final int nesting) {
+            if (nesting == 0) return json;
+            return json.replace(LINE_FEED, LINE_FEED + StringUtils.repeat(' ', nesting * 2));
         }
     }
 }
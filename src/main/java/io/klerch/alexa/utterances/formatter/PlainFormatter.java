@@ -1,9 +1,13 @@
 package io.klerch.alexa.utterances.formatter;
 
 import io.klerch.alexa.utterances.model.Generation;
+import io.klerch.alexa.utterances.model.Intent;
+import io.klerch.alexa.utterances.model.SlotType;
 import io.klerch.alexa.utterances.output.OutputWriter;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.function.Function;
+
 import static io.klerch.alexa.utterances.formatter.PlainFormatter.INTENT_DISPLAY_OPTION.ONCE_ON_TOP;
 import static io.klerch.alexa.utterances.formatter.PlainFormatter.INTENT_DISPLAY_OPTION.ONCE_PER_LINE;
 import static io.klerch.alexa.utterances.formatter.PlainFormatter.SLOT_TYPE_DISPLAY_OPTION.*;
@@ -13,6 +17,7 @@ public class PlainFormatter implements Formatter {
     private final SLOT_TYPE_DISPLAY_OPTION slotTypeDisplay;
     private final boolean displayInvocationName;
     private final OutputWriter writer;
+    private final Function<Intent, ? extends Iterable<String>> sampleSource;
 
     public enum INTENT_DISPLAY_OPTION {
         ONCE_ON_TOP, ONCE_PER_LINE, NONE
@@ -22,38 +27,41 @@ public class PlainFormatter implements Formatter {
         ID_AND_VALUES, ID_ONLY, VALUES_ONLY, NONE
     }
 
+    /**
+     * Writes intent by intent and sample utterance by sample utterance straight into the output writer
+     * @param generation result set object
+     */
     @Override
     public void print(final Generation generation) {
-        final StringBuilder sb = new StringBuilder();
-
-        if (displayInvocationName) {
-            sb.append("Invocation: ").append(generation.getModel().getInvocationName()).append("\n----------------------\n\n");
-        }
-
-        generation.getModel().getModel().getIntents().forEach(intent -> {
-            if (intentDisplay.equals(ONCE_ON_TOP)) sb.append(intent.getName()).append("\n----------------------\n");
-            intent.getSamples().forEach(sample -> {
-                if (intentDisplay.equals(ONCE_PER_LINE)) sb.append(intent.getName()).append(": ");
-                sb.append(sample).append("\n");
-            });
-            sb.append("\n");
-        });
-
-        if (!slotTypeDisplay.equals(NONE) && generation.getModel().getModel().getSlotTypes().size() > 0) {
-            generation.getModel().getModel().getSlotTypes().forEach(slotType -> {
-                sb.append(slotType.getName()).append("\n----------------------\n");
-                slotType.getValues().forEach(value -> {
-                    if (!slotTypeDisplay.equals(VALUES_ONLY)) sb.append(value.getId()).append(": ");
-                    if (!slotTypeDisplay.equals(ID_ONLY)) {
-                        sb.append(value.getSlotName().getValue()).append(", ");
-                        sb.append(StringUtils.join(value.getSlotName().getSynonyms(), ", "));
+        writer.print(out -> {
+            if (displayInvocationName) {
+                out.append("Invocation: ").append(generation.getModel().getInvocationName()).append("\n----------------------\n\n");
+            }
+
+            for (final Intent intent : generation.getModel().getModel().getIntents()) {
+                if (intentDisplay.equals(ONCE_ON_TOP)) out.append(intent.getName()).append("\n----------------------\n");
+                for (final String sample : sampleSource.apply(intent)) {
+                    if (intentDisplay.equals(ONCE_PER_LINE)) out.append(intent.getName()).append(": ");
+                    out.append(sample).append("\n");
+                }
+                out.append("\n");
+            }
+
+            if (!slotTypeDisplay.equals(NONE) && generation.getModel().getModel().getSlotTypes().size() > 0) {
+                for (final SlotType slotType : generation.getModel().getModel().getSlotTypes()) {
+                    out.append(slotType.getName()).append("\n----------------------\n");
+                    for (final SlotType.SlotValue value : slotType.getValues()) {
+                        if (!slotTypeDisplay.equals(VALUES_ONLY)) out.append(value.getId()).append(": ");
+                        if (!slotTypeDisplay.equals(ID_ONLY)) {
+                            out.append(value.getSlotName().getValue()).append(", ");
+                            out.append(StringUtils.join(value.getSlotName().getSynonyms(), ", "));
+                        }
+                        out.append("\n");
                     }
-                    sb.append("\n");
-                });
-                sb.append("\n");
-            });
-        }
-        writer.print(sb.toString(), generation);
+                    out.append("\n");
+                }
+            }
+        }, generation);
     }
 
     private PlainFormatter(final EditorialFormatterBuilder builder) {
@@ -61,6 +69,7 @@ public class PlainFormatter implements Formatter {
         this.slotTypeDisplay = builder.slotTypeDisplay;
         this.displayInvocationName = builder.displayInvocationName;
         this.writer = builder.writer;
+        this.sampleSource = builder.sampleSource;
     }
 
     public static EditorialFormatterBuilder create(final OutputWriter writer) {
@@ -73,6 +82,7 @@ public class PlainFormatter implements Formatter {
         private SLOT_TYPE_DISPLAY_OPTION slotTypeDisplay = NONE;
         private boolean displayInvocationName = false;
         private OutputWriter writer;
+        private Function<Intent, ? extends Iterable<String>> sampleSource = Intent::getSampleStore;
 
         public EditorialFormatterBuilder(final OutputWriter writer) {
             this.writer = writer;
@@ -93,6 +103,17 @@ public class PlainFormatter implements Formatter {
             return this;
         }
 
+        /**
+         * Sets where sample utterances of an intent are read from. Default is the sample store of the intent. Use a lazy
+         * source (e.g. expanding the grammar on the fly) to print sample utterances never held in memory.
+         * @param sampleSource sample utterances per intent
+         * @return plain formatter builder
+         */
+        public EditorialFormatterBuilder withSampleSource(final Function<Intent, ? extends Iterable<String>> sampleSource) {
+            this.sampleSource = sampleSource;
+            return this;
+        }
+
         public PlainFormatter build() {
             return new PlainFormatter(this);
         }
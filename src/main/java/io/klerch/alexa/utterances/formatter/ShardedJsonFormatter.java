@@ -0,0 +1,481 @@
+package io.klerch.alexa.utterances.formatter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.klerch.alexa.utterances.model.Generation;
+import io.klerch.alexa.utterances.model.Intent;
+import io.klerch.alexa.utterances.model.SlotType;
+import io.klerch.alexa.utterances.output.OutputWriter;
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes the schema as a set of JSON files (shards) rather than one big file. Each shard holds a JSON array of intents,
+ * the last ones hold the slot types. Intents too large for one shard are split up into parts over several shards. Shards
+ * are sized by the bytes of their elements as they are written, so no shard exceeds the maximum size unless a single
+ * sample utterance or slot type does not fit into a shard on its own. Shards are written concurrently. A manifest with counts, sizes and checksums of all shards goes to the output writer.
+ * Use ShardedJsonReader to reassemble the schema.
+ */
+public class ShardedJsonFormatter implements Formatter {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final ObjectWriter SHARD_WRITER = MAPPER.writer();
+    private static final ObjectWriter MANIFEST_WRITER = MAPPER.writer(new JsonFormatter.PrettyPrinter());
+    /**
+     * Bytes of the array around the elements of a shard
+     */
+    private static final int ARRAY_BYTES = 2;
+    private final OutputWriter writer;
+    private final Path directory;
+    private final long maxShardBytes;
+    private final boolean shardByIntent;
+    private final int parallelism;
+
+    private ShardedJsonFormatter(final ShardedJsonFormatterBuilder builder) {
+        this.writer = builder.writer;
+        this.directory = builder.directory;
+        this.maxShardBytes = builder.maxShardBytes;
+        this.shardByIntent = builder.shardByIntent;
+        this.parallelism = builder.parallelism;
+    }
+
+    /**
+     * Writes shards to the shard folder and the manifest to the output writer
+     * @param generation result set object
+     */
+    @Override
+    public void print(final Generation generation) {
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        final List<List<Shard>> units;
+        try {
+            units = planIntents(generation.getModel().getModel().getIntents());
+            units.add(planSlotTypes(generation.getModel().getModel().getSlotTypes()));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> units.parallelStream().forEach(unit -> {
+                if (unit.get(0).slotTypes >= 0) {
+                    writeSlotTypes(unit);
+                } else {
+                    writeIntents(unit);
+                }
+            })).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        final ObjectNode manifest = MAPPER.createObjectNode();
+        manifest.put("invocationName", generation.getModel().getInvocationName());
+        manifest.put("directory", manifestPath(writer.getDirectory().orElse(null)));
+        manifest.put("numberOfIntents", generation.getNumberOfIntents());
+        manifest.put("numberOfUtterances", generation.getNumberOfUtterances());
+        manifest.put("numberOfSlotTypes", generation.getNumberOfSlotTypes());
+        final ArrayNode shards = manifest.putArray("shards");
+        units.forEach(unit -> unit.forEach(shard -> shards.add(shard.toManifestEntry())));
+        writer.print(out -> MANIFEST_WRITER.writeValue(out, manifest), generation);
+    }
+
+    /**
+     * Returns the shard folder as written to the manifest: relative to the folder of the manifest if the output writer
+     * saves it to the file system, so both can be moved together, otherwise absolute
+     */
+    private String manifestPath(final Path manifestDirectory) {
+        if (manifestDirectory != null) {
+            try {
+                final String relative = manifestDirectory.toAbsolutePath().normalize().relativize(directory.toAbsolutePath().normalize()).toString();
+                return relative.isEmpty() ? "." : relative;
+            } catch (final IllegalArgumentException e) {
+                // no relative path between them, e.g. on different drives
+            }
+        }
+        return directory.toAbsolutePath().toString();
+    }
+
+    /**
+     * Assigns intents to shards in model order. Shards are grouped into units written by one thread each: either
+     * shards of whole intents or the shards of one intent split up into parts.
+     * @param intents intents
+     * @return units of shards
+     */
+    private List<List<Shard>> planIntents(final List<Intent> intents) throws IOException {
+        final List<List<Shard>> units = new ArrayList<>();
+        final Measure measure = new Measure();
+        Shard current = null;
+        for (final Intent intent : intents) {
+            final long bytes = measure.of(generator -> SHARD_WRITER.writeValue(generator, intent));
+            if (ARRAY_BYTES + bytes > maxShardBytes && intent.hasSamples()) {
+                units.add(split(intent, measure));
+                current = null;
+                continue;
+            }
+            if (current == null || shardByIntent || !current.fits(bytes, maxShardBytes)) {
+                current = new Shard();
+                final List<Shard> unit = new ArrayList<>();
+                unit.add(current);
+                units.add(unit);
+            }
+            current.add(new Part(intent, -1, true), bytes);
+        }
+        // number shards in order of the manifest
+        int number = 0;
+        for (final List<Shard> unit : units) {
+            for (final Shard shard : unit) {
+                shard.file = fileName("intents", number++);
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Splits up sample utterances of an intent into parts filling up one shard each. Every part has room for the
+     * slots, which go with the last part only.
+     */
+    private List<Shard> split(final Intent intent, final Measure measure) throws IOException {
+        // {"name":"...","samples":[ ... ],"slots":[...]}
+        final long header = measure.of(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("name", intent.getName());
+            generator.writeArrayFieldStart("samples");
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }) - "]}".length();
+        final long footer = "]}".length() + (intent.getSlots().isEmpty() ? 0 : measure.of(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName("slots");
+            SHARD_WRITER.writeValue(generator, intent.getSlots());
+            generator.writeEndObject();
+        }) - "{}".length() + ",".length());
+        final long budget = maxShardBytes - ARRAY_BYTES - header - footer;
+        final List<Shard> unit = new ArrayList<>();
+        int count = 0;
+        long partBytes = 0;
+        for (final String sample : intent.getSampleStore()) {
+            final long bytes = measure.of(generator -> generator.writeString(sample));
+            if (count > 0 && partBytes + 1 + bytes > budget) {
+                unit.add(new Shard().add(new Part(intent, count, false), header + partBytes + footer));
+                count = 0;
+                partBytes = 0;
+            }
+            partBytes += (count > 0 ? 1 : 0) + bytes;
+            count++;
+        }
+        unit.add(new Shard().add(new Part(intent, count, true), header + partBytes + footer));
+        return unit;
+    }
+
+    /**
+     * Assigns slot types to shards in model order. All of them are written by one thread.
+     * @param slotTypes slot types
+     * @return unit of shards. There is at least one shard even if there are no slot types.
+     */
+    private List<Shard> planSlotTypes(final List<SlotType> slotTypes) throws IOException {
+        final List<Shard> unit = new ArrayList<>();
+        final Measure measure = new Measure();
+        Shard current = new Shard();
+        current.slotTypes = 0;
+        unit.add(current);
+        for (final SlotType slotType : slotTypes) {
+            final long bytes = measure.of(generator -> SHARD_WRITER.writeValue(generator, slotType));
+            if (!current.types.isEmpty() && !current.fits(bytes, maxShardBytes)) {
+                current = new Shard();
+                current.slotTypes = 0;
+                unit.add(current);
+            }
+            current.types.add(slotType);
+            current.slotTypes++;
+            current.bytes += (current.types.size() > 1 ? 1 : 0) + bytes;
+        }
+        for (int i = 0; i < unit.size(); i++) {
+            unit.get(i).file = fileName("types", i);
+        }
+        return unit;
+    }
+
+    private static String fileName(final String kind, final int number) {
+        return String.format("%s-%05d.json", kind, number);
+    }
+
+    /**
+     * Writes shards of intents. Parts of a split intent are written from one pass over its sample utterances.
+     */
+    private void writeIntents(final List<Shard> unit) {
+        Intent intent = null;
+        Iterator<String> samples = null;
+        for (final Shard shard : unit) {
+            try (final ShardOutput output = new ShardOutput(directory.resolve(shard.file))) {
+                final JsonGenerator generator = output.generator;
+                generator.writeStartArray();
+                for (final Part part : shard.parts) {
+                    shard.utterances += part.count < 0 ? part.intent.countSamples() : part.count;
+                    if (part.count < 0) {
+                        SHARD_WRITER.writeValue(generator, part.intent);
+                        continue;
+                    }
+                    if (part.intent != intent) {
+                        intent = part.intent;
+                        samples = intent.getSampleStore().iterator();
+                    }
+                    generator.writeStartObject();
+                    generator.writeStringField("name", intent.getName());
+                    generator.writeArrayFieldStart("samples");
+                    for (int i = 0; i < part.count; i++) {
+                        generator.writeString(samples.next());
+                    }
+                    generator.writeEndArray();
+                    // slots go with the last part, so the reader finds them after all sample utterances
+                    if (part.last && !intent.getSlots().isEmpty()) {
+                        generator.writeFieldName("slots");
+                        SHARD_WRITER.writeValue(generator, intent.getSlots());
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                output.finish(shard);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void writeSlotTypes(final List<Shard> unit) {
+        for (final Shard shard : unit) {
+            try (final ShardOutput output = new ShardOutput(directory.resolve(shard.file))) {
+                SHARD_WRITER.writeValue(output.generator, shard.types);
+                output.finish(shard);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public static ShardedJsonFormatterBuilder create(final OutputWriter writer, final Path directory) {
+        return new ShardedJsonFormatterBuilder(writer, directory);
+    }
+
+    public static class ShardedJsonFormatterBuilder {
+        private final OutputWriter writer;
+        private final Path directory;
+        private long maxShardBytes = 64L << 20;
+        private boolean shardByIntent = false;
+        private int parallelism = 1;
+
+        ShardedJsonFormatterBuilder(final OutputWriter writer, final Path directory) {
+            this.writer = writer;
+            this.directory = directory;
+        }
+
+        /**
+         * Sets the size a shard must not exceed. Intents larger than that are split up. Default is 64 MB.
+         * @param maxShardBytes maximum size of a shard in bytes
+         * @return sharded json formatter builder
+         */
+        public ShardedJsonFormatterBuilder withMaxShardBytes(final long maxShardBytes) {
+            this.maxShardBytes = maxShardBytes;
+            return this;
+        }
+
+        /**
+         * Writes each intent to a shard of its own rather than filling up shards. Default is false.
+         * @param shardByIntent true for one shard per intent
+         * @return sharded json formatter builder
+         */
+        public ShardedJsonFormatterBuilder shardByIntent(final boolean shardByIntent) {
+            this.shardByIntent = shardByIntent;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads writing shards
+         * @param parallelism number of threads, 1 (default) for sequential processing
+         * @return sharded json formatter builder
+         */
+        public ShardedJsonFormatterBuilder withParallelism(final int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public ShardedJsonFormatter build() {
+            Validate.notNull(directory, "Folder for shards is required.");
+            Validate.isTrue(maxShardBytes > 0, "Maximum size of a shard needs to be at least 1 byte.");
+            Validate.isTrue(parallelism > 0, "Parallelism needs to be at least 1.");
+            return new ShardedJsonFormatter(this);
+        }
+    }
+
+    /**
+     * Part of an intent within a shard
+     */
+    private static class Part {
+        private final Intent intent;
+        /**
+         * Number of sample utterances in this part or -1 for the whole intent
+         */
+        private final int count;
+        private final boolean last;
+
+        private Part(final Intent intent, final int count, final boolean last) {
+            this.intent = intent;
+            this.count = count;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Shard file with what it contains
+     */
+    private static class Shard {
+        private final List<Part> parts = new ArrayList<>();
+        private final List<SlotType> types = new ArrayList<>();
+        private String file;
+        /**
+         * Size of the shard. Planned size of its elements until it is written.
+         */
+        private long bytes = ARRAY_BYTES;
+        private long utterances;
+        /**
+         * Number of slot types in the shard or -1 for a shard of intents
+         */
+        private long slotTypes = -1;
+        private String sha256;
+
+        private Shard add(final Part part, final long partBytes) {
+            bytes += (parts.isEmpty() ? 0 : 1) + partBytes;
+            parts.add(part);
+            return this;
+        }
+
+        /**
+         * Returns true if another element of the given size fits into the shard
+         */
+        private boolean fits(final long elementBytes, final long maxBytes) {
+            return bytes + 1 + elementBytes <= maxBytes;
+        }
+
+        private ObjectNode toManifestEntry() {
+            final ObjectNode entry = MAPPER.createObjectNode();
+            entry.put("file", file);
+            if (slotTypes < 0) {
+                final ArrayNode intents = entry.putArray("intents");
+                parts.forEach(part -> intents.add(part.intent.getName()));
+                entry.put("utterances", utterances);
+            } else {
+                entry.put("slotTypes", slotTypes);
+            }
+            entry.put("bytes", bytes);
+            entry.put("sha256", sha256);
+            return entry;
+        }
+    }
+
+    /**
+     * JSON generator writing to a shard file while computing its checksum
+     */
+    private static class ShardOutput implements AutoCloseable {
+        private final Path file;
+        private final MessageDigest digest;
+        private final OutputStream stream;
+        private final JsonGenerator generator;
+
+        private ShardOutput(final Path file) throws IOException {
+            this.file = file;
+            this.digest = sha256();
+            this.stream = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16), digest);
+            this.generator = MAPPER.getFactory().createGenerator(stream);
+        }
+
+        private void finish(final Shard shard) throws IOException {
+            close();
+            shard.bytes = Files.size(file);
+            shard.sha256 = ShardedJsonReader.toHex(digest.digest());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (generator.isClosed()) return;
+            generator.close();
+            stream.close();
+        }
+    }
+
+    /**
+     * Measures the bytes a JSON element takes up in a shard by writing it the same way a shard is written, just without
+     * keeping the bytes
+     */
+    private static class Measure {
+        private final CountingOutputStream counter = new CountingOutputStream();
+        private final JsonGenerator generator;
+
+        private Measure() {
+            try {
+                generator = MAPPER.getFactory().createGenerator(counter);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+            // elements are written one after another on the top level without anything in between
+            generator.setRootValueSeparator(null);
+        }
+
+        private long of(final Element element) throws IOException {
+            generator.flush();
+            final long before = counter.count;
+            element.writeTo(generator);
+            generator.flush();
+            return counter.count - before;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Element {
+        void writeTo(final JsonGenerator generator) throws IOException;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package io.klerch.alexa.utterances.formatter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * Reassembles a schema written by ShardedJsonFormatter. Output is the same as JsonFormatter would have written for the
+ * whole model. Shards are read one after another and checked against size and checksum in the manifest.
+ */
+public class ShardedJsonReader {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private ShardedJsonReader() {
+    }
+
+    /**
+     * Reassembles the schema from shards in the folder named in the manifest. A relative folder is resolved against the
+     * folder of the manifest.
+     * @param manifestFile manifest written by ShardedJsonFormatter
+     * @param out destination of the schema. It is not closed.
+     * @param compact true to write schema without line-breaks and indentation
+     * @throws IOException in case reading or writing fails
+     */
+    public static void reassemble(final Path manifestFile, final Writer out, final boolean compact) throws IOException {
+        final JsonNode manifest = MAPPER.readTree(manifestFile.toFile());
+        final Path directory = Paths.get(manifest.path("directory").asText());
+        reassemble(manifestFile, directory.isAbsolute() ? directory : manifestFile.toAbsolutePath().getParent().resolve(directory), out, compact);
+    }
+
+    /**
+     * Reassembles the schema from shards in the given folder
+     * @param manifestFile manifest written by ShardedJsonFormatter
+     * @param directory folder holding the shards
+     * @param out destination of the schema. It is not closed.
+     * @param compact true to write schema without line-breaks and indentation
+     * @throws IOException in case reading or writing fails
+     */
+    public static void reassemble(final Path manifestFile, final Path directory, final Writer out, final boolean compact) throws IOException {
+        final JsonNode manifest = MAPPER.readTree(manifestFile.toFile());
+        try (final JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+            if (!compact) generator.setPrettyPrinter(new JsonFormatter.PrettyPrinter());
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("interactionModel");
+            generator.writeObjectFieldStart("languageModel");
+            generator.writeArrayFieldStart("intents");
+            final IntentWriter intents = new IntentWriter(generator);
+            for (final JsonNode shard : manifest.path("shards")) {
+                if (shard.has("intents")) readShard(directory, shard, part -> intents.write(part));
+            }
+            intents.close();
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("types");
+            for (final JsonNode shard : manifest.path("shards")) {
+                if (shard.has("slotTypes")) readShard(directory, shard, generator::writeTree);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("invocationName", manifest.path("invocationName").isNull() ? null : manifest.path("invocationName").asText());
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads the elements of a shard one by one and verifies its size and checksum afterwards
+     */
+    private static void readShard(final Path directory, final JsonNode shard, final ElementConsumer consumer) throws IOException {
+        final Path file = directory.resolve(shard.path("file").asText());
+        final MessageDigest digest = ShardedJsonFormatter.sha256();
+        try (final InputStream in = new DigestInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16), digest);
+             final JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            Validate.isTrue(parser.nextToken() == JsonToken.START_ARRAY, "Shard " + file + " does not hold a JSON array.");
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(MAPPER.readTree(parser));
+            }
+            // read to the end so the checksum covers the whole file
+            final byte[] rest = new byte[1 << 12];
+            while (in.read(rest) >= 0) {
+                // only digested
+            }
+        }
+        Validate.isTrue(Files.size(file) == shard.path("bytes").asLong(), "Shard " + file + " does not have the size given in the manifest.");
+        Validate.isTrue(toHex(digest.digest()).equals(shard.path("sha256").asText()), "Shard " + file + " does not match the checksum given in the manifest.");
+    }
+
+    static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    @FunctionalInterface
+    private interface ElementConsumer {
+        void accept(final JsonNode element) throws IOException;
+    }
+
+    /**
+     * Writes intents from their parts. Parts of the same intent follow each other and only the first one opens the
+     * intent, so sample utterances of all parts end up in one array followed by the slots.
+     */
+    private static class IntentWriter {
+        private final JsonGenerator generator;
+        private String name;
+        private boolean samplesOpen;
+        private JsonNode slots;
+
+        private IntentWriter(final JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        private void write(final JsonNode part) throws IOException {
+            final String partName = part.path("name").isNull() ? null : part.path("name").asText();
+            if (name == null || !name.equals(partName)) {
+                close();
+                name = partName;
+                generator.writeStartObject();
+                generator.writeStringField("name", partName);
+                if (part.has("samples")) {
+                    generator.writeArrayFieldStart("samples");
+                    samplesOpen = true;
+                }
+            }
+            for (final JsonNode sample : part.path("samples")) {
+                generator.writeString(sample.asText());
+            }
+            if (part.has("slots")) slots = part.get("slots");
+        }
+
+        private void close() throws IOException {
+            if (name == null) return;
+            if (samplesOpen) generator.writeEndArray();
+            if (slots != null) {
+                generator.writeFieldName("slots");
+                generator.writeTree(slots);
+            }
+            generator.writeEndObject();
+            name = null;
+            samplesOpen = false;
+            slots = null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.klerch.alexa.utterances.model;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Open addressing hash table from 64-bit fingerprints of sample utterances to int references (e.g. the position of a
+ * sample utterance in a list). Fingerprints are not unique, so lookups confirm each fingerprint hit with a predicate
+ * comparing the actual strings. Keeps two primitive arrays instead of one object per entry.
+ */
+final class FingerprintTable {
+    private static final int EMPTY = -1;
+    private long[] fingerprints;
+    private int[] references;
+    private int size;
+
+    /**
+     * New table
+     * @param expectedSize number of entries expected to be put in the table
+     */
+    FingerprintTable(final int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1);
+    }
+
+    /**
+     * Computes a 64-bit fingerprint of a string
+     * @param text string
+     * @return fingerprint
+     */
+    static long fingerprint(final String text) {
+        // FNV-1a over chars followed by the finalizer of MurmurHash3 to spread bits
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns the first reference stored with the given fingerprint which matches the predicate
+     * @param fingerprint fingerprint to look up
+     * @param matches confirms a fingerprint hit, e.g. by comparing the referenced string
+     * @return reference or -1 if there is none
+     */
+    int find(final long fingerprint, final IntPredicate matches) {
+        final int mask = references.length - 1;
+        for (int slot = (int) fingerprint & mask; references[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (fingerprints[slot] == fingerprint && matches.test(references[slot])) return references[slot];
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Adds a reference. Does not check for existing entries with the same fingerprint.
+     * @param fingerprint fingerprint of the referenced string
+     * @param reference non-negative reference
+     */
+    void put(final long fingerprint, final int reference) {
+        if (size * 2 >= references.length) {
+            final long[] oldFingerprints = fingerprints;
+            final int[] oldReferences = references;
+            allocate(references.length * 2);
+            for (int slot = 0; slot < oldReferences.length; slot++) {
+                if (oldReferences[slot] != EMPTY) insert(oldFingerprints[slot], oldReferences[slot]);
+            }
+        }
+        insert(fingerprint, reference);
+        size++;
+    }
+
+    private void insert(final long fingerprint, final int reference) {
+        final int mask = references.length - 1;
+        int slot = (int) fingerprint & mask;
+        while (references[slot] != EMPTY) slot = (slot + 1) & mask;
+        fingerprints[slot] = fingerprint;
+        references[slot] = reference;
+    }
+
+    private void allocate(final int capacity) {
+        fingerprints = new long[capacity];
+        references = new int[capacity];
+        Arrays.fill(references, EMPTY);
+    }
+}
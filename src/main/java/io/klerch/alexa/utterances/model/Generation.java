@@ -1,10 +1,13 @@
 package io.klerch.alexa.utterances.model;
 
 /**
- * Result set object representing output of Generator
+ * Result set object representing output of Generator. Close it once done with the sample utterances to release
+ * temporary files of sample stores spilling to disk.
  */
-public class Generation {
+public class Generation implements AutoCloseable {
     private final InteractionModel model;
+    private final GenerationPlan plan;
+    private final GenerationProfile profile;
     private final long numberOfUtterances;
     private final long numberOfCustomIntents;
     private final long numberOfBuiltinIntents;
@@ -19,7 +22,28 @@ public class Generation {
      * @param model skill interaction model object
      */
     public Generation(final InteractionModel model) {
+        this(model, null);
+    }
+
+    /**
+     * Create new result set from interaction model
+     * @param model skill interaction model object
+     * @param plan expected output computed before generation
+     */
+    public Generation(final InteractionModel model, final GenerationPlan plan) {
+        this(model, plan, null);
+    }
+
+    /**
+     * Create new result set from interaction model
+     * @param model skill interaction model object
+     * @param plan expected output computed before generation
+     * @param profile measurements taken during generation
+     */
+    public Generation(final InteractionModel model, final GenerationPlan plan, final GenerationProfile profile) {
         this.model = model;
+        this.plan = plan;
+        this.profile = profile;
         this.numberOfUtterances = model.getModel().getIntents().stream().mapToLong(Intent::countSamples).sum();
         this.numberOfIntents = (long) model.getModel().getIntents().size();
         this.numberOfCustomIntents = (model.getModel().getIntents().stream().filter(intent -> !intent.getName().startsWith("AMAZON.")).count());
@@ -30,6 +54,15 @@ public class Generation {
         this.numberOfSlotValuesWithSynonyms = this.numberOfSlotValues + model.getModel().getSlotTypes().stream().mapToLong(SlotType::countValuesWithSynonyms).sum();
     }
 
+    /**
+     * Releases resources the sample stores of the model hold outside of the heap, e.g. temporary files. Intents have no
+     * sample utterances afterwards.
+     */
+    @Override
+    public void close() {
+        model.getModel().getIntents().forEach(Intent::close);
+    }
+
     /**
      * Get skill interaction model
      * @return skill interaction model
@@ -38,6 +71,22 @@ public class Generation {
         return model;
     }
 
+    /**
+     * Get expected output computed before generation
+     * @return expected output computed before generation, null if not planned
+     */
+    public GenerationPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Get measurements taken during generation
+     * @return measurements per grammar line and placeholder, null if profiling was not enabled
+     */
+    public GenerationProfile getProfile() {
+        return profile;
+    }
+
     /**
      * Returns number of utterances in the skill interaction model
      * @return number of utterances in the skill interaction model
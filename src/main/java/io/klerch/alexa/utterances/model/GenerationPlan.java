@@ -0,0 +1,103 @@
+package io.klerch.alexa.utterances.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result set object representing the expected output of Generator computed before any sample utterance is generated.
+ * Numbers are taken before deduplication of sample utterances and thus are an upper bound.
+ */
+public class GenerationPlan {
+    private final Map<String, IntentPlan> intents = new TreeMap<>();
+
+    /**
+     * Adds the expected output of an intent to the plan
+     * @param intentName name of the intent
+     * @param numberOfTemplates number of grammar lines defining sample utterances for the intent
+     * @param numberOfUtterances number of sample utterances generated for the intent
+     * @param estimatedBytes estimated size of the sample utterances in the JSON output
+     */
+    public void addIntent(final String intentName, final long numberOfTemplates, final long numberOfUtterances, final long estimatedBytes) {
+        intents.put(intentName, new IntentPlan(intentName, numberOfTemplates, numberOfUtterances, estimatedBytes));
+    }
+
+    /**
+     * Returns expected output per intent ordered by intent name
+     * @return expected output per intent
+     */
+    public List<IntentPlan> getIntents() {
+        return new ArrayList<>(intents.values());
+    }
+
+    /**
+     * Returns number of sample utterances to be generated in total
+     * @return number of sample utterances to be generated in total. Long.MAX_VALUE if it exceeds the range of long.
+     */
+    public long getNumberOfUtterances() {
+        return intents.values().stream().mapToLong(IntentPlan::getNumberOfUtterances).reduce(0, GenerationPlan::add);
+    }
+
+    /**
+     * Returns estimated size of all sample utterances in the JSON output
+     * @return estimated size in bytes. Long.MAX_VALUE if it exceeds the range of long.
+     */
+    public long getEstimatedBytes() {
+        return intents.values().stream().mapToLong(IntentPlan::getEstimatedBytes).reduce(0, GenerationPlan::add);
+    }
+
+    private static long add(final long a, final long b) {
+        final long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Expected output of one intent
+     */
+    public static class IntentPlan {
+        private final String name;
+        private final long numberOfTemplates;
+        private final long numberOfUtterances;
+        private final long estimatedBytes;
+
+        IntentPlan(final String name, final long numberOfTemplates, final long numberOfUtterances, final long estimatedBytes) {
+            this.name = name;
+            this.numberOfTemplates = numberOfTemplates;
+            this.numberOfUtterances = numberOfUtterances;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        /**
+         * Get name of intent
+         * @return name of intent
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns number of grammar lines defining sample utterances for the intent
+         * @return number of grammar lines defining sample utterances for the intent
+         */
+        public long getNumberOfTemplates() {
+            return numberOfTemplates;
+        }
+
+        /**
+         * Returns number of sample utterances to be generated for the intent
+         * @return number of sample utterances to be generated for the intent
+         */
+        public long getNumberOfUtterances() {
+            return numberOfUtterances;
+        }
+
+        /**
+         * Returns estimated size of the sample utterances of the intent in the JSON output
+         * @return estimated size in bytes
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+    }
+}
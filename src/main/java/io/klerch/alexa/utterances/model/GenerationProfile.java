@@ -0,0 +1,271 @@
+package io.klerch.alexa.utterances.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Result set object attributing number of sample utterances and generation time to grammar lines and placeholders
+ */
+public class GenerationProfile {
+    private final List<LineProfile> lines = new ArrayList<>();
+    private final Map<Placeholder, PlaceholderProfile> placeholders = new LinkedHashMap<>();
+    private long numberOfUtterances;
+    private long nanos;
+
+    /**
+     * Adds measurements of one grammar line
+     * @param intentName name of the intent the line belongs to
+     * @param line sample utterance as written in the grammar
+     * @param numberOfUtterances number of sample utterances generated from the line
+     * @param nanos time it took to generate the sample utterances in nanoseconds
+     * @param placeholdersInLine placeholders referenced in the line
+     */
+    public void addLine(final String intentName, final String line, final long numberOfUtterances, final long nanos, final List<Placeholder> placeholdersInLine) {
+        lines.add(new LineProfile(intentName, line, numberOfUtterances, nanos));
+        this.numberOfUtterances += numberOfUtterances;
+        this.nanos += nanos;
+        placeholdersInLine.stream().distinct().forEach(placeholder -> {
+            placeholders.computeIfAbsent(placeholder, PlaceholderProfile::new).add(numberOfUtterances, nanos);
+        });
+    }
+
+    /**
+     * Returns number of sample utterances generated from all lines
+     * @return number of sample utterances generated from all lines
+     */
+    public long getNumberOfUtterances() {
+        return numberOfUtterances;
+    }
+
+    /**
+     * Returns time it took to generate all sample utterances in nanoseconds
+     * @return time it took to generate all sample utterances in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns measurements of grammar lines, most time consuming first
+     * @return measurements of grammar lines
+     */
+    public List<LineProfile> getLines() {
+        return lines.stream().sorted(Comparator.comparingLong(LineProfile::getNanos).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns measurements of placeholders, those multiplying sample utterances the most first
+     * @return measurements of placeholders
+     */
+    public List<PlaceholderProfile> getPlaceholders() {
+        return placeholders.values().stream().sorted(Comparator.comparingLong(PlaceholderProfile::getExcessUtterances).reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns measurements of placeholders resolved from values files, those multiplying sample utterances the most first
+     * @return measurements of placeholders resolved from values files
+     */
+    public List<PlaceholderProfile> getValuesFiles() {
+        return getPlaceholders().stream().filter(p -> p.getSource().endsWith(".values")).collect(Collectors.toList());
+    }
+
+    private double share(final long part, final long total) {
+        return total > 0 ? (double) part / total : 0;
+    }
+
+    /**
+     * Placeholder within a grammar line
+     */
+    public static class Placeholder {
+        private final String name;
+        private final String source;
+        private final int numberOfValues;
+
+        /**
+         * New placeholder
+         * @param name placeholder as written in the grammar
+         * @param source where values come from, e.g. name of values file
+         * @param numberOfValues number of values substituting the placeholder
+         */
+        public Placeholder(final String name, final String source, final int numberOfValues) {
+            this.name = name;
+            this.source = source;
+            this.numberOfValues = numberOfValues;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Placeholder)) return false;
+            final Placeholder placeholder = (Placeholder) o;
+            return name.equals(placeholder.name) && source.equals(placeholder.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + source.hashCode();
+        }
+    }
+
+    /**
+     * Measurements of one grammar line
+     */
+    public class LineProfile {
+        private final String intentName;
+        private final String line;
+        private final long numberOfUtterances;
+        private final long nanos;
+
+        private LineProfile(final String intentName, final String line, final long numberOfUtterances, final long nanos) {
+            this.intentName = intentName;
+            this.line = line;
+            this.numberOfUtterances = numberOfUtterances;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get name of the intent the line belongs to
+         * @return name of the intent
+         */
+        public String getIntentName() {
+            return intentName;
+        }
+
+        /**
+         * Get sample utterance as written in the grammar
+         * @return grammar line
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * Returns number of sample utterances generated from the line
+         * @return number of sample utterances generated from the line
+         */
+        public long getNumberOfUtterances() {
+            return numberOfUtterances;
+        }
+
+        /**
+         * Returns time it took to generate the sample utterances of the line in nanoseconds
+         * @return time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns share of the line in all generated sample utterances
+         * @return share between 0 and 1
+         */
+        public double getShareOfUtterances() {
+            return share(numberOfUtterances, GenerationProfile.this.numberOfUtterances);
+        }
+
+        /**
+         * Returns share of the line in overall generation time
+         * @return share between 0 and 1
+         */
+        public double getShareOfTime() {
+            return share(nanos, GenerationProfile.this.nanos);
+        }
+    }
+
+    /**
+     * Measurements of one placeholder accumulated over all grammar lines referencing it
+     */
+    public class PlaceholderProfile {
+        private final Placeholder placeholder;
+        private long numberOfLines;
+        private long numberOfUtterances;
+        private long excessUtterances;
+        private long nanos;
+
+        private PlaceholderProfile(final Placeholder placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        private void add(final long numberOfUtterances, final long nanos) {
+            this.numberOfLines++;
+            this.numberOfUtterances += numberOfUtterances;
+            this.excessUtterances += placeholder.numberOfValues > 0 ? numberOfUtterances - numberOfUtterances / placeholder.numberOfValues : 0;
+            this.nanos += nanos;
+        }
+
+        /**
+         * Get placeholder as written in the grammar
+         * @return placeholder as written in the grammar
+         */
+        public String getName() {
+            return placeholder.name;
+        }
+
+        /**
+         * Get where values come from, e.g. name of values file
+         * @return where values come from
+         */
+        public String getSource() {
+            return placeholder.source;
+        }
+
+        /**
+         * Returns number of values substituting the placeholder
+         * @return number of values
+         */
+        public int getNumberOfValues() {
+            return placeholder.numberOfValues;
+        }
+
+        /**
+         * Returns number of grammar lines referencing the placeholder
+         * @return number of grammar lines
+         */
+        public long getNumberOfLines() {
+            return numberOfLines;
+        }
+
+        /**
+         * Returns number of sample utterances generated from lines referencing the placeholder
+         * @return number of sample utterances
+         */
+        public long getNumberOfUtterances() {
+            return numberOfUtterances;
+        }
+
+        /**
+         * Returns number of sample utterances that would not be generated if the placeholder had just one value
+         * @return number of sample utterances caused by the variance of this placeholder
+         */
+        public long getExcessUtterances() {
+            return excessUtterances;
+        }
+
+        /**
+         * Returns time it took to generate the lines referencing the placeholder in nanoseconds
+         * @return time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns share of lines referencing the placeholder in all generated sample utterances
+         * @return share between 0 and 1
+         */
+        public double getShareOfUtterances() {
+            return share(numberOfUtterances, GenerationProfile.this.numberOfUtterances);
+        }
+
+        /**
+         * Returns share of lines referencing the placeholder in overall generation time
+         * @return share between 0 and 1
+         */
+        public double getShareOfTime() {
+            return share(nanos, GenerationProfile.this.nanos);
+        }
+    }
+}
@@ -3,11 +3,11 @@ package io.klerch.alexa.utterances.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * JSON object representing an intent in the skill interaction model
@@ -17,17 +17,32 @@ public class Intent {
     private final String name;
     @JsonProperty
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
-    private List<String> samples = new ArrayList<>();
+    @JsonSerialize(using = SampleStore.Serializer.class)
+    private final SampleStore samples;
     @JsonProperty
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
     private final List<Slot> slots = new ArrayList<>();
+    /**
+     * Fingerprint of what sample utterances and slots were generated from or 0 if unknown
+     */
+    private long fingerprint;
 
     /**
      * New Intent with name
      * @param name intent name
      */
     public Intent(final String name) {
+        this(name, new ListSampleStore());
+    }
+
+    /**
+     * New Intent with name keeping its sample utterances in the given store
+     * @param name intent name
+     * @param samples store for sample utterances
+     */
+    public Intent(final String name, final SampleStore samples) {
         this.name = name;
+        this.samples = samples;
     }
 
     /**
@@ -39,10 +54,21 @@ public class Intent {
     }
 
     /**
-     * Get list of sample utterances
-     * @return list of sample utterances
+     * Get list of sample utterances. Use addSample, addUniqueSample and deduplicateAndSortSamples to change them, which
+     * keep the sample store and the fingerprint of the intent consistent.
+     * @return unmodifiable list of sample utterances. Depending on the sample store this is a view or a copy.
      */
+    @JsonIgnore
     public List<String> getSamples() {
+        return Collections.unmodifiableList(samples.asList());
+    }
+
+    /**
+     * Get store holding the sample utterances
+     * @return sample store
+     */
+    @JsonIgnore
+    public SampleStore getSampleStore() {
         return samples;
     }
 
@@ -51,14 +77,35 @@ public class Intent {
      * @param sample sample utterance
      */
     public void addSample(final String sample) {
+        fingerprint = 0;
         samples.add(sample);
     }
 
+    /**
+     * Add new sample utterance to intent unless the intent already got the same sample utterance
+     * @param sample sample utterance
+     * @return true if sample utterance was added. false if it is a duplicate.
+     */
+    public boolean addUniqueSample(final String sample) {
+        fingerprint = 0;
+        return samples.addUnique(sample);
+    }
+
+    /**
+     * Get slot references of intent
+     * @return unmodifiable list of slot references
+     */
+    @JsonIgnore
+    public List<Slot> getSlots() {
+        return Collections.unmodifiableList(slots);
+    }
+
     /**
      * Add new slot reference to intent
      * @param slot slot object with reference name and slot type
      */
     public void addSlot(final Slot slot) {
+        fingerprint = 0;
         slots.add(slot);
     }
 
@@ -67,7 +114,38 @@ public class Intent {
      */
     @JsonIgnore
     public void deduplicateAndSortSamples() {
-        samples = samples.stream().distinct().sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+        fingerprint = 0;
+        samples.deduplicateAndSort();
+    }
+
+    /**
+     * Releases resources the sample store holds outside of the heap, e.g. temporary files. The intent has no sample
+     * utterances afterwards.
+     */
+    @JsonIgnore
+    public void close() {
+        fingerprint = 0;
+        samples.close();
+    }
+
+    /**
+     * Returns a fingerprint of what sample utterances and slots of this intent were generated from. Intents with the same
+     * fingerprint serialize to the same JSON.
+     * @return fingerprint or 0 if unknown, e.g. because the intent was changed after the fingerprint was set
+     */
+    @JsonIgnore
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets a fingerprint of what sample utterances and slots of this intent were generated from. It is reset as soon as
+     * sample utterances or slots change.
+     * @param fingerprint fingerprint
+     */
+    @JsonIgnore
+    public void setFingerprint(final long fingerprint) {
+        this.fingerprint = fingerprint;
     }
 
     /**
@@ -76,7 +154,7 @@ public class Intent {
      */
     @JsonIgnore
     public boolean hasSamples() {
-        return !samples.isEmpty();
+        return samples.size() > 0;
     }
 
     /**
@@ -107,9 +185,23 @@ public class Intent {
     public List<String> getDuplicateSamplesWith(final Intent intent) {
         final Intent intentWithLessSamples = intent.samples.size() > this.samples.size() ? this : intent;
         final Intent intentWithMoreSamples = intentWithLessSamples.equals(this) ? intent : this;
-        // create copy of samples
-        final List<String> samples = new ArrayList<>(intentWithLessSamples.samples);
-        samples.retainAll(intentWithMoreSamples.samples);
+        final List<String> samples = new ArrayList<>();
+        if (intentWithLessSamples.samples.isSortedAndDistinct() && intentWithMoreSamples.samples.isSortedAndDistinct()) {
+            // walk through both sorted stores side by side. Either walk might stop early, so iterators get closed.
+            try (final SampleIterator less = intentWithLessSamples.samples.open();
+                 final SampleIterator more = intentWithMoreSamples.samples.open()) {
+                String other = more.hasNext() ? more.next() : null;
+                while (less.hasNext() && other != null) {
+                    final String sample = less.next();
+                    while (other != null && other.compareTo(sample) < 0) other = more.hasNext() ? more.next() : null;
+                    if (sample.equals(other)) samples.add(sample);
+                }
+            }
+            return samples;
+        }
+        for (final String sample : intentWithLessSamples.samples) {
+            if (intentWithMoreSamples.samples.contains(sample)) samples.add(sample);
+        }
         return samples;
     }
 }
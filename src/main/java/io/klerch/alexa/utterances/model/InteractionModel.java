@@ -6,9 +6,20 @@ import com.fasterxml.jackson.annotation.JsonRootName;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * JSON object representing a skill interaction model
@@ -60,6 +71,18 @@ public class InteractionModel {
         return intent;
     }
 
+    /**
+     * Adds a new intent keeping its sample utterances in the given store to the underlying language model JSON object
+     * @param intentName name for new intent
+     * @param samples store for sample utterances
+     * @return intent JSON object
+     */
+    public Intent addIntent(final String intentName, final SampleStore samples) {
+        final Intent intent = new Intent(intentName, samples);
+        languageModel.intents.add(intent);
+        return intent;
+    }
+
     /**
      * Adds a new intent to the underlying language model JSON object
      * @param intent intent JSON object
@@ -100,6 +123,38 @@ public class InteractionModel {
      * Does some validation of the model. Throws validation exceptions.
      */
     public void validate() {
+        validate(true);
+    }
+
+    /**
+     * Does some validation of the model. Throws validation exceptions.
+     * @param findDuplicateSamples false to skip looking for sample utterances shared by two intents, e.g. because
+     * overlaps were already checked on the grammar
+     */
+    public void validate(final boolean findDuplicateSamples) {
+        validate(findDuplicateSamples, 1);
+    }
+
+    /**
+     * Does some validation of the model. Throws validation exceptions. Exceptions are the same no matter how many
+     * threads are used.
+     * @param findDuplicateSamples false to skip looking for sample utterances shared by two intents, e.g. because
+     * overlaps were already checked on the grammar
+     * @param parallelism number of threads, 1 for sequential processing
+     */
+    public void validate(final boolean findDuplicateSamples, final int parallelism) {
+        Validate.isTrue(parallelism > 0, "Parallelism needs to be at least 1.");
+        withPool(parallelism, pool -> validate(findDuplicateSamples, pool));
+    }
+
+    /**
+     * Does some validation of the model. Throws validation exceptions. Exceptions are the same no matter how many
+     * threads are used.
+     * @param findDuplicateSamples false to skip looking for sample utterances shared by two intents, e.g. because
+     * overlaps were already checked on the grammar
+     * @param pool pool to run parallel work on or null for sequential processing
+     */
+    public void validate(final boolean findDuplicateSamples, final ForkJoinPool pool) {
         // ensure all intents got samples except for builtins
         Validate.isTrue(languageModel.intents.stream().allMatch(intent -> intent.getName().startsWith("AMAZON.") || intent.hasSamples()), "At least one of you custom intents does not have any sample utterance.");
         // ensure all slots got values
@@ -107,39 +162,202 @@ public class InteractionModel {
         // needs intents
         Validate.isTrue(!languageModel.intents.isEmpty(), "There is no intent defined in your grammar.");
         // ensure no duplicates exists across two intents
-        findDuplicateSamples(0, 1);
+        if (findDuplicateSamples) findDuplicateSamples(pool);
     }
 
     /**
      * Does some cleanup in the model.
      */
     public void cleanUp() {
+        cleanUp(1);
+    }
+
+    /**
+     * Does some cleanup in the model. Intents are cleaned up concurrently with the result being the same as with
+     * sequential processing.
+     * @param parallelism number of threads, 1 for sequential processing
+     */
+    public void cleanUp(final int parallelism) {
+        Validate.isTrue(parallelism > 0, "Parallelism needs to be at least 1.");
+        withPool(parallelism, this::cleanUp);
+    }
+
+    /**
+     * Does some cleanup in the model. Intents are cleaned up concurrently with the result being the same as with
+     * sequential processing.
+     * @param pool pool to run parallel work on or null for sequential processing
+     */
+    public void cleanUp(final ForkJoinPool pool) {
         // sort intents by name
         languageModel.intents.sort(Comparator.comparing(Intent::getName));
         // sort slot types by name
         languageModel.types.sort(Comparator.comparing(SlotType::getName));
         // deduplicate and sort utterances for each intent
-        languageModel.intents.forEach(Intent::deduplicateAndSortSamples);
+        if (pool != null) {
+            inParallel(pool, () -> languageModel.intents.parallelStream().forEach(Intent::deduplicateAndSortSamples));
+        } else {
+            languageModel.intents.forEach(Intent::deduplicateAndSortSamples);
+        }
+    }
+
+    /**
+     * Runs a task with a fork/join pool of the given number of threads, which is shut down afterwards
+     * @param parallelism number of threads, 1 to pass no pool for sequential processing
+     * @param task task to run with the pool
+     */
+    private static void withPool(final int parallelism, final Consumer<ForkJoinPool> task) {
+        final ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            task.accept(pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
     }
 
     /**
-     * Compares sample utterances of two given intents and throws and exception in case of exact duplicates
-     * @param intentId1 intent 1
-     * @param intentId2 intent 2
+     * Runs a task on a fork/join pool and waits for it to finish
+     * @param pool pool to run the task on
+     * @param task task which may split up into parallel streams or fork/join tasks
      */
-    private void findDuplicateSamples(final int intentId1, final int intentId2) {
-        if (intentId1 >= languageModel.intents.size() - 1) {
-            return;
-        } else if (intentId2 >= languageModel.intents.size()) {
-            findDuplicateSamples(intentId1 + 1, intentId1 + 2);
+    private static void inParallel(final ForkJoinPool pool, final Runnable task) {
+        try {
+            pool.submit(task).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Looks up all sample utterances in one index over all intents and throws an exception in case two intents share
+     * an exact duplicate. The exception reports the first pair of intents (in model order) sharing a sample utterance.
+     * @param pool pool to run parallel work on or null for sequential processing
+     */
+    private void findDuplicateSamples(final ForkJoinPool pool) {
+        final List<Intent> intents = languageModel.intents;
+        final int parallelism = pool == null ? 1 : pool.getParallelism();
+        final int[] pair;
+        if (intents.stream().allMatch(intent -> intent.getSampleStore().isSortedAndDistinct()) && (parallelism == 1 || !intents.stream().allMatch(intent -> intent.getSampleStore().isInMemory()))) {
+            // a single pass over sorted sample utterances needs the least memory, which matters most for stores on disk
+            pair = findFirstPairMerging();
+        } else if (parallelism > 1) {
+            pair = findFirstPairSharding(pool);
         } else {
-            // compare two intents and get their duplicate samples
-            final List<String> duplicates = languageModel.intents.get(intentId1).getDuplicateSamplesWith(languageModel.intents.get(intentId2));
-            // should never have any duplicates
-            Validate.isTrue(duplicates.isEmpty(), "You got " + duplicates.size() + " overlapping sample utterances in your intents " + languageModel.intents.get(intentId1).getName() + " and " + languageModel.intents.get(intentId2).getName() + " (e.g. " + (duplicates.isEmpty() ? "" : duplicates.get(0)) + ")");
-            // continue with next pair
-            findDuplicateSamples(intentId1, intentId2 + 1);
+            pair = findFirstPairIndexing(null, 0, 1);
+        }
+        if (pair == null) return;
+        // compare the two intents to report the number of duplicates and an example
+        final List<String> duplicates = intents.get(pair[0]).getDuplicateSamplesWith(intents.get(pair[1]));
+        // should never have any duplicates
+        Validate.isTrue(duplicates.isEmpty(), "You got " + duplicates.size() + " overlapping sample utterances in your intents " + intents.get(pair[0]).getName() + " and " + intents.get(pair[1]).getName() + " (e.g. " + (duplicates.isEmpty() ? "" : duplicates.get(0)) + ")");
+    }
+
+    /**
+     * Splits up the index over all intents into shards by fingerprint and fills them concurrently. Each shard finds the
+     * first pair of intents sharing one of its sample utterances, and the first of these pairs is the same as the one
+     * found with a single index.
+     * @param pool pool to run on. There is one shard per thread of the pool.
+     * @return first pair of intents (in model order) sharing a sample utterance or null
+     */
+    private int[] findFirstPairSharding(final ForkJoinPool pool) {
+        final int parallelism = pool.getParallelism();
+        final List<Intent> intents = languageModel.intents;
+        // fingerprints are computed once per sample utterance rather than once per shard
+        final long[][] fingerprints = new long[intents.size()][];
+        final List<int[]> pairs = new ArrayList<>();
+        inParallel(pool, () -> {
+            IntStream.range(0, intents.size()).parallel().forEach(intentId -> {
+                final long[] intentFingerprints = new long[intents.get(intentId).countSamples()];
+                int i = 0;
+                for (final String sample : intents.get(intentId).getSampleStore()) {
+                    intentFingerprints[i++] = FingerprintTable.fingerprint(sample);
+                }
+                fingerprints[intentId] = intentFingerprints;
+            });
+            pairs.addAll(IntStream.range(0, parallelism).parallel().mapToObj(shard -> findFirstPairIndexing(fingerprints, shard, parallelism)).collect(Collectors.toList()));
+        });
+        return pairs.stream().filter(Objects::nonNull).min(Comparator.<int[]>comparingInt(pair -> pair[0]).thenComparingInt(pair -> pair[1])).orElse(null);
+    }
+
+    /**
+     * Walks through the sorted sample utterances of all intents side by side. Only holds one sample utterance per
+     * intent in memory, so it works for sample stores kept on disk.
+     * @return first pair of intents (in model order) sharing a sample utterance or null
+     */
+    private int[] findFirstPairMerging() {
+        final List<Intent> intents = languageModel.intents;
+        final List<Iterator<String>> readers = new ArrayList<>();
+        // current sample utterance and intent of each reader ordered by sample utterance and intent
+        final PriorityQueue<Map.Entry<String, Integer>> heads = new PriorityQueue<>(Map.Entry.<String, Integer>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+        for (int intentId = 0; intentId < intents.size(); intentId++) {
+            readers.add(intents.get(intentId).getSampleStore().iterator());
+            if (readers.get(intentId).hasNext()) heads.add(new AbstractMap.SimpleImmutableEntry<>(readers.get(intentId).next(), intentId));
+        }
+        int[] pair = null;
+        while (!heads.isEmpty()) {
+            final Map.Entry<String, Integer> head = heads.poll();
+            // intents sharing this sample utterance come next in ascending order
+            if (!heads.isEmpty() && heads.peek().getKey().equals(head.getKey())) {
+                final int second = heads.peek().getValue();
+                if (pair == null || head.getValue() < pair[0] || (head.getValue() == pair[0] && second < pair[1])) {
+                    pair = new int[] { head.getValue(), second };
+                }
+            }
+            final Iterator<String> reader = readers.get(head.getValue());
+            if (reader.hasNext()) heads.add(new AbstractMap.SimpleImmutableEntry<>(reader.next(), head.getValue()));
+        }
+        return pair;
+    }
+
+    /**
+     * Puts all sample utterances of a shard into one index over all intents
+     * @param fingerprints fingerprints of sample utterances per intent or null to compute them on the fly
+     * @param shard shard to index
+     * @param shards number of shards, 1 to index all sample utterances
+     * @return first pair of intents (in model order) sharing a sample utterance of the shard or null
+     */
+    private int[] findFirstPairIndexing(final long[][] fingerprints, final int shard, final int shards) {
+        final List<Intent> intents = languageModel.intents;
+        final int numberOfSamples = intents.stream().mapToInt(Intent::countSamples).sum() / shards;
+        final FingerprintTable index = new FingerprintTable(numberOfSamples);
+        // per distinct sample utterance: the sample utterance, first intent it occurs in and the next intent sharing it
+        String[] sampleOfEntry = new String[16];
+        int[] firstIntent = new int[16];
+        int[] secondIntent = new int[16];
+        int entries = 0;
+        int pairIntent1 = -1;
+        int pairIntent2 = -1;
+        for (int intentId = 0; intentId < intents.size(); intentId++) {
+            int position = 0;
+            for (final String sample : intents.get(intentId).getSampleStore()) {
+                final long fingerprint = fingerprints != null ? fingerprints[intentId][position++] : FingerprintTable.fingerprint(sample);
+                // shards are picked by the upper bits as the index spreads fingerprints by the lower bits
+                if (shards > 1 && (int) ((fingerprint >>> 33) % shards) != shard) continue;
+                final String[] samplesOfEntry = sampleOfEntry;
+                final int entry = index.find(fingerprint, e -> samplesOfEntry[e].equals(sample));
+                if (entry < 0) {
+                    if (entries == firstIntent.length) {
+                        sampleOfEntry = Arrays.copyOf(sampleOfEntry, entries * 2);
+                        firstIntent = Arrays.copyOf(firstIntent, entries * 2);
+                        secondIntent = Arrays.copyOf(secondIntent, entries * 2);
+                    }
+                    sampleOfEntry[entries] = sample;
+                    firstIntent[entries] = intentId;
+                    secondIntent[entries] = -1;
+                    index.put(fingerprint, entries++);
+                } else if (secondIntent[entry] < 0 && firstIntent[entry] != intentId) {
+                    secondIntent[entry] = intentId;
+                    // intents are visited in order, so the pair with the lowest first intent wins and the second intent only grows
+                    if (pairIntent1 < 0 || firstIntent[entry] < pairIntent1) {
+                        pairIntent1 = firstIntent[entry];
+                        pairIntent2 = intentId;
+                    }
+                }
+            }
         }
+        return pairIntent1 < 0 ? null : new int[] { pairIntent1, pairIntent2 };
     }
 
     /**
@@ -0,0 +1,121 @@
+package io.klerch.alexa.utterances.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Sample store keeping sample utterances in a list in the order they were added. Duplicates are found with a
+ * fingerprint table built on first lookup and kept up to date with sample utterances appended to the list.
+ */
+public class ListSampleStore implements SampleStore {
+    /**
+     * Minimum number of sample utterances to sort in parallel when sorting runs on a fork/join pool
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+    private List<String> samples = new ArrayList<>();
+    /**
+     * Positions of sample utterances by fingerprint
+     */
+    private FingerprintTable index;
+    /**
+     * Number of sample utterances at the head of the list contained in the index
+     */
+    private int indexed;
+    /**
+     * Number of sample utterances right after they were sorted or -1 if they were not sorted
+     */
+    private int sorted = -1;
+
+    @Override
+    public void add(final String sample) {
+        samples.add(sample);
+    }
+
+    @Override
+    public boolean addUnique(final String sample) {
+        final long fingerprint = FingerprintTable.fingerprint(sample);
+        if (find(sample, fingerprint) >= 0) return false;
+        index.put(fingerprint, indexed++);
+        samples.add(sample);
+        return true;
+    }
+
+    @Override
+    public boolean contains(final String sample) {
+        return find(sample, FingerprintTable.fingerprint(sample)) >= 0;
+    }
+
+    private int find(final String sample, final long fingerprint) {
+        if (index == null || indexed > samples.size()) {
+            index = new FingerprintTable(samples.size());
+            indexed = 0;
+        }
+        // catch up with sample utterances added without lookup
+        for (; indexed < samples.size(); indexed++) {
+            index.put(FingerprintTable.fingerprint(samples.get(indexed)), indexed);
+        }
+        return index.find(fingerprint, i -> samples.get(i).equals(sample));
+    }
+
+    @Override
+    public int size() {
+        return samples.size();
+    }
+
+    /**
+     * Removes duplicate sample utterances and sorts alphabetically. Large lists are sorted in parallel on the fork/join
+     * pool of the calling thread, so the number of threads follows the parallelism of post-processing.
+     */
+    @Override
+    public void deduplicateAndSort() {
+        if (samples.size() >= PARALLEL_SORT_THRESHOLD && ForkJoinTask.inForkJoinPool()) {
+            final String[] array = samples.toArray(new String[0]);
+            Arrays.parallelSort(array);
+            samples = Arrays.asList(array);
+        } else {
+            samples.sort(Comparator.naturalOrder());
+        }
+        // duplicates are neighbors after sorting
+        final List<String> distinct = new ArrayList<>(samples.size());
+        for (final String sample : samples) {
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).equals(sample)) distinct.add(sample);
+        }
+        samples = distinct;
+        index = null;
+        sorted = samples.size();
+    }
+
+    /**
+     * Returns true if sample utterances were sorted and nothing was added ever since
+     * @return true if sample utterances are sorted and distinct
+     */
+    @Override
+    public boolean isSortedAndDistinct() {
+        return sorted == samples.size();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return true;
+    }
+
+    /**
+     * Returns an unmodifiable view of the underlying list of sample utterances, so the fingerprint index cannot get out
+     * of sync with the list
+     * @return unmodifiable list of sample utterances
+     */
+    @Override
+    public List<String> asList() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return asList().iterator();
+    }
+}
@@ -0,0 +1,38 @@
+package io.klerch.alexa.utterances.model;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over sample utterances which might hold resources, e.g. an open file of a sample store spilled to disk. It
+ * has to be closed unless it was read to its end.
+ */
+public interface SampleIterator extends Iterator<String>, AutoCloseable {
+    /**
+     * Releases resources held by the iterator. Calling it more than once has no effect.
+     */
+    @Override
+    void close();
+
+    /**
+     * Wraps an iterator which holds no resources
+     * @param iterator iterator over sample utterances
+     * @return iterator doing nothing on close
+     */
+    static SampleIterator of(final Iterator<String> iterator) {
+        return new SampleIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
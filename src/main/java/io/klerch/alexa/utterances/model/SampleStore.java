@@ -0,0 +1,102 @@
+package io.klerch.alexa.utterances.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Holds the sample utterances of an intent. Implementations differ in how they keep sample utterances in memory.
+ */
+public interface SampleStore extends Iterable<String> {
+    /**
+     * Adds a sample utterance even if the store already holds it
+     * @param sample sample utterance
+     */
+    void add(final String sample);
+
+    /**
+     * Adds a sample utterance unless the store already holds it
+     * @param sample sample utterance
+     * @return true if sample utterance was added. false if it is a duplicate.
+     */
+    boolean addUnique(final String sample);
+
+    /**
+     * Returns true if the store holds the given sample utterance
+     * @param sample sample utterance
+     * @return true if the store holds the given sample utterance
+     */
+    boolean contains(final String sample);
+
+    /**
+     * Returns the number of sample utterances including duplicates
+     * @return number of sample utterances
+     */
+    int size();
+
+    /**
+     * Removes duplicate sample utterances and sorts alphabetically
+     */
+    void deduplicateAndSort();
+
+    /**
+     * Returns true if iteration returns sample utterances in alphabetical order without duplicates
+     * @return true if sample utterances are sorted and distinct
+     */
+    boolean isSortedAndDistinct();
+
+    /**
+     * Returns true if all sample utterances are held in memory, false if the store reads them from somewhere else
+     * @return true if sample utterances are held in memory
+     */
+    boolean isInMemory();
+
+    /**
+     * Returns the sample utterances as a list. Depending on the store this is an unmodifiable view or a copy, so sample
+     * utterances are never added or removed through it.
+     * @return list of sample utterances
+     */
+    List<String> asList();
+
+    /**
+     * Opens an iterator over the sample utterances. It has to be closed if it is not read to its end.
+     * @return iterator over all sample utterances
+     */
+    default SampleIterator open() {
+        return SampleIterator.of(iterator());
+    }
+
+    /**
+     * Releases resources held outside of the heap, e.g. temporary files. The store is empty afterwards.
+     */
+    default void close() {
+    }
+
+    /**
+     * Writes a sample store as JSON array of strings without copying it to a list
+     */
+    class Serializer extends StdSerializer<SampleStore> {
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(SampleStore.class);
+        }
+
+        @Override
+        public boolean isEmpty(final SerializerProvider provider, final SampleStore store) {
+            return store == null || store.size() == 0;
+        }
+
+        @Override
+        public void serialize(final SampleStore store, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+            generator.writeStartArray();
+            for (final String sample : store) {
+                generator.writeString(sample);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -3,20 +3,36 @@ package io.klerch.alexa.utterances.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
- * JSON object representing a slot type definition in a skill interaction model
+ * JSON object representing a slot type definition in a skill interaction model. Values are found by slot id with a
+ * fingerprint table built on first lookup.
  */
 @JsonInclude
 public class SlotType {
     @JsonProperty
     private String name;
     @JsonProperty
-    private final List<SlotValue> values = new ArrayList<>();
+    private final ArrayList<SlotValue> values = new ArrayList<>();
+    /**
+     * Positions of values by fingerprint of their slot id
+     */
+    private FingerprintTable index;
+    /**
+     * Number of values at the head of the list contained in the index
+     */
+    private int indexed;
 
     /**
      * New slot type with name
@@ -38,6 +54,53 @@ public class SlotType {
         return values;
     }
 
+    /**
+     * Returns the first value with the given slot id
+     * @param id slot id as it is serialized, i.e. spaces replaced by underscores
+     * @return slot value or empty if there is no value with this slot id
+     */
+    @JsonIgnore
+    public Optional<SlotValue> getValue(final String id) {
+        if (index == null || indexed > values.size()) {
+            index = new FingerprintTable(values.size());
+            indexed = 0;
+        }
+        // catch up with values added since the last lookup
+        for (; indexed < values.size(); indexed++) {
+            index.put(FingerprintTable.fingerprint(values.get(indexed).id), indexed);
+        }
+        final int position = index.find(FingerprintTable.fingerprint(id), i -> values.get(i).id.equals(id));
+        return position < 0 ? Optional.empty() : Optional.of(values.get(position));
+    }
+
+    /**
+     * Returns a fingerprint of name and values of this slot type. Slot types with the same fingerprint serialize to the
+     * same JSON.
+     * @return fingerprint
+     */
+    @JsonIgnore
+    public long getFingerprint() {
+        long hash = fingerprint(name);
+        for (final SlotValue value : values) {
+            hash = combine(hash, fingerprint(value.id));
+            hash = combine(hash, fingerprint(value.value));
+            hash = combine(hash, value.synonyms.length);
+            for (final String synonym : value.synonyms) {
+                hash = combine(hash, fingerprint(synonym));
+            }
+        }
+        return hash;
+    }
+
+    private static long fingerprint(final String text) {
+        // null serializes differently than an empty string
+        return text == null ? 0 : FingerprintTable.fingerprint(text);
+    }
+
+    private static long combine(final long hash, final long value) {
+        return (hash ^ value) * 0x9e3779b97f4a7c15L + 0x632be59bd9b4e019L;
+    }
+
     /**
      * Add new value to slot type. Ignores blank values
      * @param value slot value, ignores blanks
@@ -72,7 +135,7 @@ public class SlotType {
      */
     @JsonIgnore
     public Long countValues() {
-        return values.stream().filter(v -> v.name != null && StringUtils.isNotBlank(v.name.value)).count();
+        return values.stream().filter(v -> StringUtils.isNotBlank(v.value)).count();
     }
 
     /**
@@ -81,7 +144,7 @@ public class SlotType {
      */
     @JsonIgnore
     public Long countValuesWithSynonyms() {
-        return (long) values.stream().filter(v -> v.name != null && StringUtils.isNotBlank(v.name.value)).mapToInt(v -> v.name.synonyms.size()).sum();
+        return (long) values.stream().filter(v -> StringUtils.isNotBlank(v.value)).mapToInt(v -> v.synonyms.length).sum();
     }
 
     /**
@@ -94,6 +157,17 @@ public class SlotType {
         this.values.add(new SlotValue(id, values));
     }
 
+    /**
+     * Adds groups of values in bulk, one per slot id in the iteration order of the map. First value of each group gets
+     * the default value and the trailing rest get synonyms.
+     * @param valuesById groups of values by slot id
+     */
+    @JsonIgnore
+    public void addValues(final Map<String, List<String>> valuesById) {
+        values.ensureCapacity(values.size() + valuesById.size());
+        valuesById.forEach(this::addValues);
+    }
+
     /**
      * Returns true if slot type got any values
      * @return true if slot type got any values, otherwise false
@@ -104,22 +178,28 @@ public class SlotType {
     }
 
     /**
-     * JSON object representing a slot value definition in a slot type defintion
+     * JSON object representing a slot value definition in a slot type defintion. Value and synonyms are kept in the
+     * slot value itself rather than in a slot name object of their own, so it takes one object and one array at most.
      */
     @JsonInclude
-    public class SlotValue {
-        @JsonProperty
+    @JsonPropertyOrder({ "id", "name" })
+    public static class SlotValue {
+        private static final String[] NO_SYNONYMS = new String[0];
+        /**
+         * Number of synonyms up to which duplicates are found by comparing with every synonym kept so far
+         */
+        private static final int LINEAR_SYNONYM_LOOKUP_LIMIT = 8;
         private final String id;
-        @JsonProperty
-        private SlotName name;
+        private final String nameId;
+        private final String value;
+        private final String[] synonyms;
 
         /**
          * New slot value with value. Slot id will be the value as well.
          * @param value slot value
          */
         public SlotValue(final String value) {
-            this.id = value.replace(" ", "_");
-            this.name = new SlotName(value);
+            this(value, value);
         }
 
         /**
@@ -129,7 +209,9 @@ public class SlotType {
          */
         public SlotValue(final String id, final String value) {
             this.id = id.replace(" ", "_");
-            this.name = new SlotName(id, value);
+            this.nameId = id;
+            this.value = value;
+            this.synonyms = NO_SYNONYMS;
         }
 
         /**
@@ -139,111 +221,93 @@ public class SlotType {
          */
         public SlotValue(final String id, final List<String> values) {
             this.id = id.replace(" ", "_");
-            this.name = new SlotName(id, values);
+            this.nameId = id;
+            this.value = values.isEmpty() ? "" : values.get(0).trim();
+            this.synonyms = values.size() > 1 ? distinctSynonyms(values) : NO_SYNONYMS;
+        }
+
+        /**
+         * Trims the trailing values of a group to synonyms. A value is dropped if it equals a synonym kept before
+         * (compared before trimming the value). Larger groups look up synonyms kept so far in a hash set.
+         * @param values group of values
+         * @return synonyms
+         */
+        private static String[] distinctSynonyms(final List<String> values) {
+            final String[] synonyms = new String[values.size() - 1];
+            final Set<String> kept = synonyms.length > LINEAR_SYNONYM_LOOKUP_LIMIT ? new HashSet<>(synonyms.length * 2) : null;
+            int count = 0;
+            for (final String synonym : values.subList(1, values.size())) {
+                if (kept != null ? kept.contains(synonym) : contains(synonyms, count, synonym)) continue;
+                synonyms[count] = synonym.trim();
+                if (kept != null) kept.add(synonyms[count]);
+                count++;
+            }
+            return count == synonyms.length ? synonyms : Arrays.copyOf(synonyms, count);
+        }
+
+        private static boolean contains(final String[] synonyms, final int count, final String synonym) {
+            for (int i = 0; i < count; i++) {
+                if (synonyms[i].equals(synonym)) return true;
+            }
+            return false;
         }
 
         /**
          * Get slot id
          * @return slot id
          */
+        @JsonProperty
         public String getId() {
             return id;
         }
 
         /**
          * Get slot name object
-         * @return slot name object
+         * @return slot name object, a view on value and synonyms of this slot value
          */
-        @JsonIgnore
+        @JsonProperty("name")
         public SlotName getSlotName() {
-            return name;
+            return new SlotName(this);
         }
 
         /**
          * JSON object representing a slot name definition in a slot value defintion
          */
         @JsonInclude
-        public class SlotName {
-            @JsonIgnore
-            private String id;
-            @JsonProperty
-            private String value;
-            @JsonProperty
-            @JsonInclude(JsonInclude.Include.NON_EMPTY)
-            private final List<String> synonyms = new ArrayList<>();
-
-            /**
-             * New SlotName object with value. Slot id will be the value as well.
-             * @param value slot value
-             */
-            private SlotName(final String value) {
-                this.value = value;
-                this.id = value;
-            }
+        @JsonPropertyOrder({ "value", "synonyms" })
+        public static class SlotName {
+            private final SlotValue slotValue;
 
-            /**
-             * New SlotName object with custom id and value.
-             * @param id slot id
-             * @param value slot value
-             */
-            private SlotName(final String id, final String value) {
-                this.value = value;
-                this.id = id;
-            }
-
-            /**
-             * New SlotName object with custom id and set of values (1st one gets the default value, trailing rest will be synonyms)
-             * @param id slot id
-             * @param values set of values
-             */
-            private SlotName(final String id, final List<String> values) {
-                this.value = values.isEmpty() ? "" : values.get(0).trim();
-                this.id = id;
-                if (values.size() > 1) {
-                    values.subList(1, values.size()).forEach(this::addSynonym);
-                }
-            }
-
-            private SlotName(final String id, final String value, final List<String> synonyms) {
-                this.value = value;
-                this.id = id;
-                this.synonyms.addAll(synonyms);
-            }
-
-            @JsonIgnore
-            private void addSynonym(final String synonym) {
-                if (!this.synonyms.contains(synonym)) {
-                    this.synonyms.add(synonym.trim());
-                }
-            }
-
-            @JsonIgnore
-            private void addSynonyms(final List<String> synonyms) {
-                synonyms.forEach(this::addSynonym);
+            private SlotName(final SlotValue slotValue) {
+                this.slotValue = slotValue;
             }
 
             /**
              * Get id
              * @return id
              */
+            @JsonIgnore
             public String getId() {
-                return id;
+                return slotValue.nameId;
             }
 
             /**
              * Get value
              * @return value
              */
+            @JsonProperty
             public String getValue() {
-                return value;
+                return slotValue.value;
             }
 
             /**
              * Get synonyms
-             * @return synonyms
+             * @return unmodifiable list of synonyms
              */
+            @JsonProperty
+            @JsonInclude(JsonInclude.Include.NON_EMPTY)
             public List<String> getSynonyms() {
-                return synonyms;
+                return Collections.unmodifiableList(Arrays.asList(slotValue.synonyms));
             }
         }
     }
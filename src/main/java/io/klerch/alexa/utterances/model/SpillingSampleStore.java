@@ -0,0 +1,447 @@
+package io.klerch.alexa.utterances.model;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sample store with a memory budget. Sample utterances are kept in memory until their number reaches a threshold.
+ * Then they are sorted and written to a temporary file (a run) and memory is freed up for the next ones. Deduplication
+ * and sorting merges the sorted runs while dropping duplicates. Iteration reads runs back from disk one sample
+ * utterance at a time, thus sample utterances come in alphabetical order per run unless the store was sorted as a whole.
+ * Duplicates are dropped on insertion only as long as they are still in memory. The rest is dropped on
+ * deduplicateAndSort(). Temporary files are deleted on close().
+ */
+public class SpillingSampleStore implements SampleStore {
+    /**
+     * Maximum number of runs merged at once
+     */
+    private static final int MERGE_FAN_IN = 64;
+    /**
+     * Every n-th sample utterance of a run is kept in memory along with its position in the file, so a lookup reads
+     * at most n sample utterances from disk
+     */
+    private static final int INDEX_INTERVAL = 64;
+    private final int threshold;
+    private final Path directory;
+    private final List<Run> runs = new ArrayList<>();
+    private ListSampleStore buffer = new ListSampleStore();
+    private int size;
+    private boolean sortedAndDistinct = false;
+
+    /**
+     * New sample store spilling to the default temporary-file directory
+     * @param threshold number of sample utterances kept in memory before they are written to disk
+     */
+    public SpillingSampleStore(final int threshold) {
+        this(threshold, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * New sample store
+     * @param threshold number of sample utterances kept in memory before they are written to disk
+     * @param directory directory for temporary files
+     */
+    public SpillingSampleStore(final int threshold, final Path directory) {
+        Validate.isTrue(threshold > 0, "Threshold for spilling sample utterances to disk needs to be at least 1.");
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    @Override
+    public void add(final String sample) {
+        buffer.add(sample);
+        added();
+    }
+
+    @Override
+    public boolean addUnique(final String sample) {
+        if (!buffer.addUnique(sample)) return false;
+        added();
+        return true;
+    }
+
+    private void added() {
+        size++;
+        sortedAndDistinct = false;
+        if (buffer.size() >= threshold) spill();
+    }
+
+    /**
+     * Sorts the sample utterances in memory and writes them to a new run
+     */
+    private void spill() {
+        final String[] samples = buffer.asList().toArray(new String[0]);
+        Arrays.sort(samples);
+        runs.add(Run.write(directory, Arrays.asList(samples).iterator(), samples.length));
+        buffer = new ListSampleStore();
+    }
+
+    /**
+     * Looks up a sample utterance in memory and then in all runs on disk. Runs are sorted, so each of them is searched
+     * in its index first and then only a few sample utterances are read from disk.
+     * @param sample sample utterance
+     * @return true if the store holds the given sample utterance
+     */
+    @Override
+    public boolean contains(final String sample) {
+        if (buffer.contains(sample)) return true;
+        for (final Run run : runs) {
+            if (run.contains(sample)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of temporary files holding sample utterances
+     * @return number of runs on disk
+     */
+    public int countRuns() {
+        return runs.size();
+    }
+
+    @Override
+    public boolean isSortedAndDistinct() {
+        return sortedAndDistinct;
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return runs.isEmpty();
+    }
+
+    @Override
+    public void deduplicateAndSort() {
+        if (runs.isEmpty()) {
+            buffer.deduplicateAndSort();
+            size = buffer.size();
+            sortedAndDistinct = true;
+            return;
+        }
+        if (sortedAndDistinct) return;
+        if (buffer.size() > 0) spill();
+        // runs are sorted already. Merge them until there is only one left, which also drops duplicates of a single run.
+        do {
+            final List<Run> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MERGE_FAN_IN) {
+                final List<Run> group = runs.subList(i, Math.min(runs.size(), i + MERGE_FAN_IN));
+                merged.add(merge(group));
+                group.forEach(Run::delete);
+            }
+            runs.clear();
+            runs.addAll(merged);
+        } while (runs.size() > 1);
+        size = runs.get(0).size;
+        sortedAndDistinct = true;
+    }
+
+    /**
+     * Merges sorted runs into one sorted run without duplicates
+     * @param group sorted runs
+     * @return merged run
+     */
+    private Run merge(final List<Run> group) {
+        final List<RunReader> readers = new ArrayList<>();
+        try {
+            group.forEach(run -> readers.add(run.open()));
+            // heads of all runs ordered by sample utterance
+            final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.sample).thenComparingInt(head -> head.reader));
+            for (int i = 0; i < readers.size(); i++) {
+                if (readers.get(i).hasNext()) heads.add(new Head(readers.get(i).next(), i));
+            }
+            final Iterator<String> merged = new Iterator<String>() {
+                private String last;
+
+                @Override
+                public boolean hasNext() {
+                    // skip whatever equals the sample utterance returned last
+                    while (!heads.isEmpty() && heads.peek().sample.equals(last)) advance();
+                    return !heads.isEmpty();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    last = heads.peek().sample;
+                    advance();
+                    return last;
+                }
+
+                private void advance() {
+                    final Head head = heads.poll();
+                    final Iterator<String> reader = readers.get(head.reader);
+                    if (reader.hasNext()) heads.add(new Head(reader.next(), head.reader));
+                }
+            };
+            return Run.write(directory, merged, -1);
+        } finally {
+            readers.forEach(RunReader::close);
+        }
+    }
+
+    @Override
+    public List<String> asList() {
+        final List<String> samples = new ArrayList<>(size);
+        forEach(samples::add);
+        return samples;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return open();
+    }
+
+    /**
+     * Iterates over the runs on disk in the order they were written followed by the sample utterances in memory. A run
+     * is opened once iteration reaches it and closed at its end or when the iterator gets closed.
+     * @return iterator over all sample utterances
+     */
+    @Override
+    public SampleIterator open() {
+        final List<Run> parts = new ArrayList<>(runs);
+        final Iterator<String> memory = buffer.iterator();
+        return new SampleIterator() {
+            private int part = 0;
+            private RunReader reader;
+            private boolean closed;
+
+            @Override
+            public boolean hasNext() {
+                if (closed) return false;
+                while (part < parts.size()) {
+                    if (reader == null) reader = parts.get(part).open();
+                    if (reader.hasNext()) return true;
+                    reader.close();
+                    reader = null;
+                    part++;
+                }
+                return memory.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return reader != null ? reader.next() : memory.next();
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+                if (reader != null) reader.close();
+                reader = null;
+            }
+        };
+    }
+
+    /**
+     * Deletes all temporary files and drops the sample utterances held in memory
+     */
+    @Override
+    public void close() {
+        runs.forEach(Run::delete);
+        runs.clear();
+        buffer = new ListSampleStore();
+        size = 0;
+        sortedAndDistinct = false;
+    }
+
+    /**
+     * Current sample utterance of a run during merge
+     */
+    private static class Head {
+        private final String sample;
+        private final int reader;
+
+        private Head(final String sample, final int reader) {
+            this.sample = sample;
+            this.reader = reader;
+        }
+    }
+
+    /**
+     * Temporary file holding sorted sample utterances together with an index of every INDEX_INTERVAL-th of them
+     */
+    private static class Run {
+        private final Path file;
+        private final int size;
+        /**
+         * Every INDEX_INTERVAL-th sample utterance and its position in the file
+         */
+        private final String[] keys;
+        private final long[] offsets;
+
+        private Run(final Path file, final int size, final String[] keys, final long[] offsets) {
+            this.file = file;
+            this.size = size;
+            this.keys = keys;
+            this.offsets = offsets;
+        }
+
+        /**
+         * Writes sorted sample utterances to a new temporary file
+         * @param directory directory for temporary files
+         * @param samples sorted sample utterances to write
+         * @param size number of sample utterances or -1 if unknown
+         * @return run
+         */
+        private static Run write(final Path directory, final Iterator<String> samples, final int size) {
+            try {
+                final Path file = Files.createTempFile(directory, "samples", ".run");
+                final List<String> keys = new ArrayList<>();
+                final List<Long> offsets = new ArrayList<>();
+                int count = 0;
+                long position = 0;
+                try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                    while (samples.hasNext()) {
+                        final String sample = samples.next();
+                        if (count % INDEX_INTERVAL == 0) {
+                            keys.add(sample);
+                            offsets.add(position);
+                        }
+                        out.writeUTF(sample);
+                        position += 2 + utfLength(sample);
+                        count++;
+                    }
+                } catch (final IOException | RuntimeException e) {
+                    Files.deleteIfExists(file);
+                    throw e;
+                }
+                Validate.isTrue(size < 0 || size == count, "Number of sample utterances written to disk does not match.");
+                return new Run(file, count, keys.toArray(new String[0]), offsets.stream().mapToLong(Long::longValue).toArray());
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Returns the number of bytes writeUTF writes for a string without its length prefix
+         */
+        private static int utfLength(final String sample) {
+            int length = 0;
+            for (int i = 0; i < sample.length(); i++) {
+                final char c = sample.charAt(i);
+                length += c >= 0x0001 && c <= 0x007f ? 1 : c <= 0x07ff ? 2 : 3;
+            }
+            return length;
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Looks up a sample utterance by searching the index and reading the sample utterances following the closest
+         * index entry not greater than the sample utterance
+         * @param sample sample utterance
+         * @return true if the run holds the given sample utterance
+         */
+        private boolean contains(final String sample) {
+            final int found = Arrays.binarySearch(keys, sample);
+            if (found >= 0) return true;
+            final int block = -found - 2;
+            if (block < 0) return false;
+            try (final RunReader reader = new RunReader(file, offsets[block], Math.min(INDEX_INTERVAL, size - block * INDEX_INTERVAL), 1 << 13)) {
+                while (reader.hasNext()) {
+                    final int comparison = reader.next().compareTo(sample);
+                    if (comparison == 0) return true;
+                    if (comparison > 0) return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Reads all sample utterances back from disk
+         * @return reader which has to be closed unless it was read to its end
+         */
+        private RunReader open() {
+            return new RunReader(file, 0, size, 1 << 16);
+        }
+    }
+
+    /**
+     * Reads a number of sample utterances from a run starting at a position in its file. The file is opened on first
+     * read and closed once the last sample utterance was read.
+     */
+    private static class RunReader implements SampleIterator {
+        private final Path file;
+        private final long offset;
+        private final int bufferSize;
+        private int remaining;
+        private DataInputStream in;
+
+        private RunReader(final Path file, final long offset, final int count, final int bufferSize) {
+            this.file = file;
+            this.offset = offset;
+            this.remaining = count;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            try {
+                if (in == null) {
+                    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                    try {
+                        channel.position(offset);
+                    } catch (final IOException e) {
+                        channel.close();
+                        throw e;
+                    }
+                    in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), bufferSize));
+                }
+                final String sample = in.readUTF();
+                if (--remaining == 0) close();
+                return sample;
+            } catch (final IOException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+            if (in == null) return;
+            try {
+                in.close();
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                in = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package io.klerch.alexa.utterances.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sample store keeping sample utterances in a path-compressed trie. Sample utterances sharing a prefix (e.g. "please
+ * book me a ...") store that prefix only once. Iteration is always in alphabetical order, so sorting comes for free.
+ * Duplicates are counted per node instead of being stored again. Nodes live in primitive arrays and their labels are
+ * slices of one character pool, so there is no object per node or sample utterance.
+ */
+public class TrieSampleStore implements SampleStore {
+    private static final int ROOT = 0;
+    /**
+     * Characters of all labels
+     */
+    private char[] pool = new char[256];
+    private int poolSize;
+    /**
+     * Per node: position and length of the label on the edge from its parent in the pool
+     */
+    private int[] labelStart = new int[16];
+    private int[] labelLength = new int[16];
+    /**
+     * Per node: number of times the sample utterance ending at the node was added
+     */
+    private int[] counts = new int[16];
+    /**
+     * Per node: children ordered by first character of their label. Null for leaves.
+     */
+    private int[][] children = new int[16][];
+    private int[] childCount = new int[16];
+    private int nodes = 1;
+    private int size;
+    private int distinct;
+
+    @Override
+    public void add(final String sample) {
+        final int node = insert(sample);
+        counts[node]++;
+        size++;
+    }
+
+    @Override
+    public boolean addUnique(final String sample) {
+        final int node = insert(sample);
+        if (counts[node] > 0) return false;
+        counts[node] = 1;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(final String sample) {
+        int node = ROOT;
+        int position = 0;
+        while (position < sample.length()) {
+            final int index = indexOf(node, sample.charAt(position));
+            if (index < 0) return false;
+            node = children[node][index];
+            if (commonPrefix(node, sample, position) < labelLength[node]) return false;
+            position += labelLength[node];
+        }
+        return counts[node] > 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct sample utterances
+     * @return number of distinct sample utterances
+     */
+    public int countDistinct() {
+        return distinct;
+    }
+
+    @Override
+    public boolean isSortedAndDistinct() {
+        return size == distinct;
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return true;
+    }
+
+    @Override
+    public void deduplicateAndSort() {
+        // already sorted, just forget about the duplicates
+        for (int node = 0; node < nodes; node++) {
+            if (counts[node] > 1) counts[node] = 1;
+        }
+        size = distinct;
+    }
+
+    @Override
+    public List<String> asList() {
+        final List<String> samples = new ArrayList<>(size);
+        forEach(samples::add);
+        return samples;
+    }
+
+    /**
+     * Returns the node of the given sample utterance and creates it if necessary
+     * @param sample sample utterance
+     * @return node of sample utterance
+     */
+    private int insert(final String sample) {
+        int node = ROOT;
+        int position = 0;
+        while (position < sample.length()) {
+            final int index = indexOf(node, sample.charAt(position));
+            if (index < 0) {
+                final int leaf = newNode(poolSize, sample.length() - position);
+                appendToPool(sample, position);
+                addChild(node, -(index + 1), leaf);
+                distinct++;
+                return leaf;
+            }
+            final int child = children[node][index];
+            final int common = commonPrefix(child, sample, position);
+            if (common < labelLength[child]) {
+                // sample utterance leaves the edge midway, so put a new node in between
+                final int middle = newNode(labelStart[child], common);
+                labelStart[child] += common;
+                labelLength[child] -= common;
+                children[node][index] = middle;
+                addChild(middle, 0, child);
+                node = middle;
+            } else {
+                node = child;
+            }
+            position += common;
+        }
+        if (counts[node] == 0) distinct++;
+        return node;
+    }
+
+    /**
+     * Returns the index of the child whose label starts with the given character
+     * @return index or -(insertion point + 1) if there is no such child
+     */
+    private int indexOf(final int node, final char first) {
+        final int[] nodeChildren = children[node];
+        int low = 0;
+        int high = childCount[node] - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final char c = pool[labelStart[nodeChildren[middle]]];
+            if (c < first) {
+                low = middle + 1;
+            } else if (c > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int commonPrefix(final int node, final String sample, final int position) {
+        final int start = labelStart[node];
+        final int length = Math.min(labelLength[node], sample.length() - position);
+        int i = 0;
+        while (i < length && pool[start + i] == sample.charAt(position + i)) i++;
+        return i;
+    }
+
+    private int newNode(final int start, final int length) {
+        if (nodes == counts.length) {
+            final int capacity = nodes * 2;
+            labelStart = Arrays.copyOf(labelStart, capacity);
+            labelLength = Arrays.copyOf(labelLength, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            children = Arrays.copyOf(children, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+        }
+        labelStart[nodes] = start;
+        labelLength[nodes] = length;
+        return nodes++;
+    }
+
+    private void addChild(final int node, final int index, final int child) {
+        final int count = childCount[node];
+        if (children[node] == null) {
+            children[node] = new int[2];
+        } else if (count == children[node].length) {
+            children[node] = Arrays.copyOf(children[node], count * 2);
+        }
+        System.arraycopy(children[node], index, children[node], index + 1, count - index);
+        children[node][index] = child;
+        childCount[node] = count + 1;
+    }
+
+    private void appendToPool(final String sample, final int position) {
+        final int length = sample.length() - position;
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+        sample.getChars(position, sample.length(), pool, poolSize);
+        poolSize += length;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private final StringBuilder prefix = new StringBuilder();
+            // path from root to current node with index of next child to visit
+            private int[] path = new int[] { ROOT };
+            private int[] nextChild = new int[] { 0 };
+            private int depth = 1;
+            private int remaining = counts[ROOT];
+
+            @Override
+            public boolean hasNext() {
+                while (remaining == 0) {
+                    if (depth == 0) return false;
+                    final int node = path[depth - 1];
+                    final int child = nextChild[depth - 1];
+                    if (child < childCount[node]) {
+                        nextChild[depth - 1]++;
+                        final int current = children[node][child];
+                        prefix.append(pool, labelStart[current], labelLength[current]);
+                        if (depth == path.length) {
+                            path = Arrays.copyOf(path, depth * 2);
+                            nextChild = Arrays.copyOf(nextChild, depth * 2);
+                        }
+                        path[depth] = current;
+                        nextChild[depth++] = 0;
+                        remaining = counts[current];
+                    } else {
+                        prefix.setLength(prefix.length() - labelLength[node]);
+                        depth--;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                remaining--;
+                return prefix.toString();
+            }
+        };
+    }
+}
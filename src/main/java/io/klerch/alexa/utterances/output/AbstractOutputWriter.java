@@ -19,10 +19,20 @@ abstract class AbstractOutputWriter implements OutputWriter {
     }
 
     /**
-     * Prints output of generator
+     * Prints output of generator by writing the string into the sink of this writer
      * @param output formatted output string
      * @param generation result set object
      */
     @Override
-    public abstract void print(final String output, final Generation generation);
+    public void print(final String output, final Generation generation) {
+        print(out -> out.write(output), generation);
+    }
+
+    /**
+     * Opens a sink for output of generator
+     * @param generation result set object
+     * @return output sink
+     */
+    @Override
+    public abstract OutputSink open(final Generation generation);
 }
@@ -0,0 +1,65 @@
+package io.klerch.alexa.utterances.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes to a file channel through a direct buffer, so bytes are copied once on their way to the file
+ */
+class ChannelOutputStream extends OutputStream {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * New stream writing to the given channel
+     * @param channel file channel. It is forced to disk and closed together with the stream.
+     * @param bufferSize size of the direct buffer in bytes
+     */
+    ChannelOutputStream(final FileChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (!buffer.hasRemaining()) drain();
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) drain();
+            final int chunk = Math.min(len, buffer.remaining());
+            buffer.put(b, off, chunk);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            drain();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -2,23 +2,78 @@ package io.klerch.alexa.utterances.output;
 
 import io.klerch.alexa.utterances.model.Generation;
 
+import java.io.FilterOutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Prints output of generator to console
  */
 public class ConsoleOutputWriter extends AbstractOutputWriter {
     /**
-     * Prints output of generator to console
-     * @param output formatted output string
+     * Held while output goes to console, so output of writers running concurrently does not interleave. A permit is not
+     * owned by a thread, so whichever thread closes or aborts a sink gives the console back.
+     */
+    static final Semaphore CONSOLE = new Semaphore(1);
+
+    /**
+     * Opens a sink printing output of generator to console. A summary is printed once the sink is closed. Other
+     * writers wait for the console until then.
      * @param generation result set object
+     * @return output sink
      */
     @Override
-    public void print(final String output, final Generation generation) {
-        System.out.println("----------------------");
-        if (verbose || !(this instanceof FileOutputWriter)) {
-            System.out.println(output);
+    public OutputSink open(final Generation generation) {
+        CONSOLE.acquireUninterruptibly();
+        // completing a sink can fail and abort it afterwards, so the console is given back exactly once
+        final AtomicBoolean held = new AtomicBoolean(true);
+        final Runnable release = () -> {
+            if (held.getAndSet(false)) CONSOLE.release();
+        };
+        try {
             System.out.println("----------------------");
+            // console stays open after the sink is closed
+            return new OutputSink(new FilterOutputStream(System.out) {
+                @Override
+                public void write(final byte[] b, final int off, final int len) {
+                    System.out.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    System.out.flush();
+                }
+            }, Charset.defaultCharset()) {
+                @Override
+                protected void complete(final long bytes) {
+                    try {
+                        System.out.println();
+                        System.out.println("----------------------");
+                        printSummary(bytes, generation);
+                    } finally {
+                        release.run();
+                    }
+                }
+
+                @Override
+                protected void discard() {
+                    release.run();
+                }
+            };
+        } catch (final RuntimeException | Error e) {
+            release.run();
+            throw e;
         }
-        System.out.println(String.format("Output generated (%.2f KB)", output.getBytes().length / 1024.00));
+    }
+
+    /**
+     * Prints size of output and numbers of the generation to console
+     * @param bytes size of output in bytes
+     * @param generation result set object
+     */
+    void printSummary(final long bytes, final Generation generation) {
+        System.out.println(String.format("Output generated (%.2f KB)", bytes / 1024.00));
         System.out.println("Created " + generation.getNumberOfUtterances() + " utterances with " + generation.getNumberOfSlots() + " slots in " + generation.getNumberOfIntents() + " intents.");
         System.out.println("Created " + generation.getNumberOfSlotTypes() + " slot types with " + generation.getNumberOfSlotValues() + " values (" + generation.getNumberOfSlotValuesWithSynonyms() + " including synonyms).");
         System.out.println("----------------------");
@@ -4,15 +4,26 @@ import io.klerch.alexa.utterances.model.Generation;
 import org.apache.commons.lang3.Validate;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Prints output of generator to file
+ * Prints output of generator to file. Output goes to a temporary file next to the destination first, which replaces
+ * the destination once complete. An existing file is never left half-written.
  */
 public class FileOutputWriter extends ConsoleOutputWriter {
-    private BufferedWriter outputWriter;
-    private FileOutputStream outputStream;
+    /**
+     * Size of the direct buffer between formatter and file
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
     private Path destinationPath;
     private File destinationFile;
 
@@ -33,45 +44,91 @@ public class FileOutputWriter extends ConsoleOutputWriter {
     }
 
     /**
-     * Prints output of generator to file. If file does not exist it will be created. If it exists it will be overwritten.
-     * @param output formatted output string
-     * @param generation result set object
+     * Returns the folder the output file is saved to
+     * @return folder of the output file
      */
     @Override
-    public void print(final String output, final Generation generation) {
-        if (destinationFile == null) {
-            final String fileEnding = output.startsWith("{") ? ".json" : ".txt";
-            final String fileName = new Date().getTime() + "_" + generation.getModel().getInvocationName().replaceAll("\\s+", "_") + fileEnding;
-            destinationFile = new File(destinationPath.resolve(fileName).toUri().getPath());
-        }
+    public Optional<Path> getDirectory() {
+        return Optional.of(destinationFile != null ? destinationFile.getAbsoluteFile().getParentFile().toPath() : destinationPath);
+    }
 
-        if (!destinationFile.exists()) {
-            try {
-                Validate.isTrue(destinationFile.createNewFile(), "Could not create output file '" + destinationFile.getAbsolutePath() + "'.");
-            } catch (final IOException e) {
-                e.printStackTrace();
-            }
+    /**
+     * Opens a sink writing output of generator to file. If file does not exist it will be created. If it exists it will
+     * be overwritten once the sink is closed.
+     * @param generation result set object
+     * @return output sink
+     */
+    @Override
+    public OutputSink open(final Generation generation) {
+        final File directory = destinationFile != null ? destinationFile.getAbsoluteFile().getParentFile() : destinationPath.toFile();
+        if (destinationFile != null) {
+            Validate.isTrue(!destinationFile.exists() || destinationFile.canWrite(), "Cannot write to file '" + destinationFile.getAbsolutePath() + "'. Permissions?");
         }
-        Validate.isTrue(destinationFile.canWrite(), "Cannot write to file '" + destinationFile.getAbsolutePath() + "'. Permissions?");
-
+        Validate.isTrue(directory.canWrite(), "Cannot write to folder '" + directory.getAbsolutePath() + "'. Permissions?");
+        // hidden file in the same folder so it can be renamed to the destination. Unlike temp files it gets default permissions.
+        final Path temporaryFile = directory.toPath().resolve("." + (destinationFile != null ? destinationFile.getName() : "alexa-generate") + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        final FileChannel channel;
         try {
-            this.outputStream = new FileOutputStream(destinationFile, false);
-            this.outputWriter = new BufferedWriter(new OutputStreamWriter(this.outputStream));
-        } catch (final FileNotFoundException e) {
+            channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (final IOException e) {
             throw new RuntimeException(e);
         }
+        return new OutputSink(new ChannelOutputStream(channel, BUFFER_SIZE), Charset.defaultCharset()) {
+            @Override
+            protected void complete(final long bytes) throws IOException {
+                CONSOLE.acquireUninterruptibly();
+                try {
+                    System.out.println("----------------------");
+                    if (verbose) {
+                        Files.copy(temporaryFile, System.out);
+                        System.out.println();
+                        System.out.println("----------------------");
+                    }
+                    printSummary(bytes, generation);
+                    final File file = destinationFile != null ? destinationFile : new File(destinationPath.resolve(fileName(temporaryFile, generation)).toUri().getPath());
+                    move(temporaryFile, file.toPath());
+                    System.out.println("Schema saved to " + file.getAbsolutePath());
+                    System.out.println("----------------------");
+                } finally {
+                    CONSOLE.release();
+                }
+            }
 
-        try {
-            super.print(output, generation);
+            @Override
+            protected void discard() {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (final IOException e) {
+                    temporaryFile.toFile().deleteOnExit();
+                }
+            }
+        };
+    }
 
-            outputWriter.write(output);
-            this.outputWriter.close();
-            this.outputStream.close();
+    /**
+     * Generates a file name from invocation name and timestamp. File ending depends on whether output is JSON and
+     * whether it is gzip-compressed.
+     */
+    private static String fileName(final Path output, final Generation generation) throws IOException {
+        final String fileEnding;
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(output))) {
+            in.mark(2);
+            final boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+            in.reset();
+            final int firstByte = (gzip ? new GZIPInputStream(in) : in).read();
+            fileEnding = (firstByte == '{' ? ".json" : ".txt") + (gzip ? ".gz" : "");
+        }
+        return new Date().getTime() + "_" + generation.getModel().getInvocationName().replaceAll("\\s+", "_") + fileEnding;
+    }
 
-            System.out.println("Schema saved to " + destinationFile.getAbsolutePath());
-            System.out.println("----------------------");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Replaces the destination file in one step where the file system supports it
+     */
+    private static void move(final Path source, final Path destination) throws IOException {
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 }
@@ -0,0 +1,128 @@
+package io.klerch.alexa.utterances.output;
+
+import io.klerch.alexa.utterances.model.Generation;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+
+/**
+ * Prints output of generator to a gzip-compressed file. Output is cut into blocks which are compressed on several
+ * threads while the formatter is still writing. Every block is a gzip member of its own, so the file is a standard
+ * gzip stream any gzip tool can read.
+ */
+public class GzipOutputWriter extends FileOutputWriter {
+    private int blockSize = 1 << 20;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int parallelism = 1;
+    private long uncompressedBytes;
+    private long elapsedNanos;
+
+    /**
+     * Creates a new GzipOutputWriter
+     * @param destinationPath destination to write compressed file to. Filename gets generated from invocation name and timestamp
+     */
+    public GzipOutputWriter(final Path destinationPath) {
+        super(destinationPath);
+    }
+
+    /**
+     * Creates a new GzipOutputWriter
+     * @param destinationFile file reference for saving the compressed output to. If file does not exist it will be created. If it exists it will be overwritten.
+     */
+    public GzipOutputWriter(final File destinationFile) {
+        super(destinationFile);
+    }
+
+    /**
+     * Sets the number of uncompressed bytes compressed at once. Larger blocks compress better, smaller blocks spread
+     * better across threads. Defaults to 1 MB.
+     * @param blockSize block size in bytes
+     * @return output writer
+     */
+    public GzipOutputWriter withBlockSize(final int blockSize) {
+        Validate.isTrue(blockSize >= 1024, "Block size needs to be at least 1024 bytes.");
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * Sets the compression level from 1 (fastest) to 9 (smallest) or 0 for no compression. Defaults to 6.
+     * @param level compression level
+     * @return output writer
+     */
+    public GzipOutputWriter withLevel(final int level) {
+        Validate.isTrue(level >= 0 && level <= 9, "Compression level needs to be between 0 and 9.");
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads compressing blocks. Defaults to 1.
+     * @param parallelism number of threads
+     * @return output writer
+     */
+    public GzipOutputWriter withParallelism(final int parallelism) {
+        Validate.isTrue(parallelism > 0, "Parallelism needs to be at least 1.");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Compressed output is not printed to console
+     * @param verbose ignored
+     * @return output writer
+     */
+    @Override
+    public OutputWriter beVerbose(final boolean verbose) {
+        return this;
+    }
+
+    /**
+     * Opens a sink compressing output of generator into a file
+     * @param generation result set object
+     * @return output sink
+     */
+    @Override
+    public OutputSink open(final Generation generation) {
+        final OutputSink file = super.open(generation);
+        final long start = System.nanoTime();
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(file.getStream(), blockSize, level, parallelism);
+        return new OutputSink(gzip, Charset.defaultCharset()) {
+            @Override
+            protected void complete(final long bytes) throws IOException {
+                uncompressedBytes = bytes;
+                elapsedNanos = System.nanoTime() - start;
+                file.close();
+            }
+
+            @Override
+            protected void abortStream() throws IOException {
+                // pending blocks would only be compressed and written to a file about to be deleted
+                gzip.abort();
+            }
+
+            @Override
+            protected void discard() {
+                file.abort();
+            }
+        };
+    }
+
+    /**
+     * Prints compression ratio and throughput followed by size of output and numbers of the generation to console
+     * @param bytes size of compressed output in bytes
+     * @param generation result set object
+     */
+    @Override
+    void printSummary(final long bytes, final Generation generation) {
+        final double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        System.out.println(String.format("Compressed %.2f KB to %.2f KB (ratio %.2f) at %.2f MB/s with %d threads",
+                uncompressedBytes / 1024.00, bytes / 1024.00, uncompressedBytes / (double) Math.max(bytes, 1),
+                uncompressedBytes / 1048576.00 / seconds, parallelism));
+        super.printSummary(bytes, generation);
+    }
+}
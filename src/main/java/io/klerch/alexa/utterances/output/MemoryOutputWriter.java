@@ -2,6 +2,9 @@ package io.klerch.alexa.utterances.output;
 
 import io.klerch.alexa.utterances.model.Generation;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Prints output of generator to memory
  */
@@ -20,6 +23,22 @@ public class MemoryOutputWriter extends AbstractOutputWriter {
         this.output = output;
     }
 
+    /**
+     * Opens a sink collecting output of generator in memory
+     * @param generation result set object
+     * @return output sink
+     */
+    @Override
+    public OutputSink open(final Generation generation) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        return new OutputSink(bytes, StandardCharsets.UTF_8) {
+            @Override
+            protected void complete(final long count) {
+                print(new String(bytes.toByteArray(), StandardCharsets.UTF_8), generation);
+            }
+        };
+    }
+
     /**
      * Returns the output stored in memory
      * @return result set of schema generation
@@ -0,0 +1,112 @@
+package io.klerch.alexa.utterances.output;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Destination for generator output opened by an OutputWriter. Formatters write to it piece by piece and close it once
+ * done, which completes the output (e.g. moves a file into place). Bytes are counted on their way to the destination.
+ */
+public class OutputSink implements Closeable {
+    private final CountingOutputStream stream;
+    private final Writer writer;
+    private boolean closed = false;
+
+    /**
+     * New sink writing to the given stream
+     * @param target destination stream. It is closed together with the sink.
+     * @param charset encoding of characters written to the writer
+     */
+    public OutputSink(final OutputStream target, final Charset charset) {
+        this.stream = new CountingOutputStream(target);
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream, charset), 1 << 16);
+    }
+
+    /**
+     * Returns the byte stream of the sink. Flush the writer before switching from writer to stream.
+     * @return byte stream
+     */
+    public OutputStream getStream() {
+        return stream;
+    }
+
+    /**
+     * Returns the character stream of the sink
+     * @return character stream
+     */
+    public Writer getWriter() {
+        return writer;
+    }
+
+    /**
+     * Returns the number of bytes passed on to the destination so far. Characters still buffered in the writer are not
+     * counted before the writer is flushed.
+     * @return number of bytes
+     */
+    public long getBytesWritten() {
+        return stream.getCount();
+    }
+
+    /**
+     * Flushes and closes the destination stream and completes the output. If any of it fails, the output is discarded
+     * as if the sink was aborted.
+     * @throws IOException in case writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        boolean completed = false;
+        try {
+            writer.flush();
+            stream.close();
+            complete(stream.getCount());
+            completed = true;
+        } finally {
+            if (!completed) abort();
+            closed = true;
+        }
+    }
+
+    /**
+     * Closes the destination stream and discards the output, e.g. because formatting failed
+     */
+    public void abort() {
+        if (closed) return;
+        closed = true;
+        try {
+            abortStream();
+        } catch (final IOException | RuntimeException e) {
+            // output gets discarded anyway
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Closes the destination stream when output is aborted. Streams which would write more on close (e.g. the last
+     * compressed block) can skip that here.
+     * @throws IOException in case closing the stream fails
+     */
+    protected void abortStream() throws IOException {
+        stream.close();
+    }
+
+    /**
+     * Called once all output was written and the destination stream was closed
+     * @param bytes number of bytes written
+     * @throws IOException in case completing the output fails
+     */
+    protected void complete(final long bytes) throws IOException {
+    }
+
+    /**
+     * Called when output was aborted and the destination stream was closed
+     */
+    protected void discard() {
+    }
+}
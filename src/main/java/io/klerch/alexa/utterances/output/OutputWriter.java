@@ -3,6 +3,13 @@ package io.klerch.alexa.utterances.output;
 
 import io.klerch.alexa.utterances.model.Generation;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
 /**
  * Interface specifying OutputWriter. OutputWriters implement logic on how to print generator output
  */
@@ -20,4 +27,61 @@ public interface OutputWriter {
      * @param generation result set object
      */
     void print(final String output, final Generation generation);
+
+    /**
+     * Returns the folder output is saved to
+     * @return folder or empty if output does not go to the file system
+     */
+    default Optional<Path> getDirectory() {
+        return Optional.empty();
+    }
+
+    /**
+     * Opens a sink for output of generator. Output is complete once the sink is closed. By default the output is
+     * collected and passed on to print(String, Generation).
+     * @param generation result set object
+     * @return output sink
+     */
+    default OutputSink open(final Generation generation) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        return new OutputSink(bytes, StandardCharsets.UTF_8) {
+            @Override
+            protected void complete(final long count) {
+                print(new String(bytes.toByteArray(), StandardCharsets.UTF_8), generation);
+            }
+        };
+    }
+
+    /**
+     * Prints output of generator which the formatter writes piece by piece into a sink. Output is discarded in case
+     * the formatter fails in whatever way, so the sink is always either closed or aborted.
+     * @param content writes formatted output
+     * @param generation result set object
+     */
+    default void print(final Content content, final Generation generation) {
+        final OutputSink sink = open(generation);
+        boolean closed = false;
+        try {
+            content.writeTo(sink.getWriter());
+            sink.close();
+            closed = true;
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (!closed) sink.abort();
+        }
+    }
+
+    /**
+     * Formatted output of generator written to a character stream
+     */
+    @FunctionalInterface
+    interface Content {
+        /**
+         * Writes formatted output. The stream is closed by the output writer.
+         * @param out character stream
+         * @throws IOException in case writing fails
+         */
+        void writeTo(final Writer out) throws IOException;
+    }
 }
@@ -0,0 +1,164 @@
+package io.klerch.alexa.utterances.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses blocks of bytes on several threads while they are written. Each block becomes a gzip member of its own,
+ * and members are written in order, which makes a standard gzip stream (RFC 1952 allows concatenated members).
+ * Number of blocks in flight is bounded, so memory stays bounded no matter how much is written.
+ */
+class ParallelGzipOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final int level;
+    private final int maxPending;
+    private final ForkJoinPool pool;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int position;
+    private boolean written = false;
+    private boolean closed = false;
+    private long bytesIn;
+    private long bytesOut;
+
+    /**
+     * New stream compressing to the given stream
+     * @param out destination stream. It is closed together with this stream.
+     * @param blockSize number of bytes compressed at once
+     * @param level compression level from 0 to 9 or -1 for the default level
+     * @param parallelism number of threads compressing blocks
+     */
+    ParallelGzipOutputStream(final OutputStream out, final int blockSize, final int level, final int parallelism) {
+        this.out = out;
+        this.level = level;
+        this.maxPending = parallelism * 2;
+        this.pool = new ForkJoinPool(parallelism);
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (position == block.length) submit();
+        block[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (position == block.length) submit();
+            final int chunk = Math.min(len, block.length - position);
+            System.arraycopy(b, off, block, position, chunk);
+            position += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Hands the current block over for compression and writes compressed blocks which are done
+     */
+    private void submit() throws IOException {
+        final byte[] data = block;
+        final int length = position;
+        pending.add(pool.submit(() -> compress(data, length)));
+        bytesIn += length;
+        written = true;
+        block = new byte[block.length];
+        position = 0;
+        while (pending.size() >= maxPending || (!pending.isEmpty() && pending.peek().isDone())) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            final byte[] compressed = pending.poll().get();
+            out.write(compressed);
+            bytesOut += compressed.length;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (final ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private byte[] compress(final byte[] data, final int length) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(compressed, 1 << 16) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Flushes compressed blocks which are done. The current block is not compressed before it is full.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Compresses the last block, writes all compressed blocks and closes the destination stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            // an empty stream still gets one member to be valid gzip
+            if (position > 0 || !written) submit();
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            pool.shutdown();
+            block = null;
+            out.close();
+        }
+    }
+
+    /**
+     * Cancels compression of pending blocks and closes the destination stream without compressing or writing anything
+     * else, e.g. because the output gets discarded anyway
+     * @throws IOException in case closing the destination stream fails
+     */
+    void abort() throws IOException {
+        if (closed) return;
+        closed = true;
+        pending.forEach(future -> future.cancel(true));
+        pending.clear();
+        pool.shutdownNow();
+        block = null;
+        out.close();
+    }
+
+    /**
+     * Returns the number of uncompressed bytes handed over for compression
+     * @return number of bytes
+     */
+    long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * Returns the number of compressed bytes written
+     * @return number of bytes
+     */
+    long getBytesOut() {
+        return bytesOut;
+    }
+}
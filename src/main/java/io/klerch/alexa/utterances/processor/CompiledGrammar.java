@@ -0,0 +1,155 @@
+package io.klerch.alexa.utterances.processor;
+
+import io.klerch.alexa.utterances.model.GenerationProfile;
+import io.klerch.alexa.utterances.model.Slot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intermediate representation of a grammar compiled by the Generator. Literals and values are interned in a symbol
+ * table with dense int ids, each placeholder of a sample utterance becomes a table of value ids and intents hold their
+ * sample utterances as templates of literal ids referring to those tables by dense int ids. Variant placeholders with
+ * the same content share one table. Slot placeholders get a table of their own as their values are slot names made
+ * unique within their utterance.
+ */
+final class CompiledGrammar {
+    private final SymbolTable symbols = new SymbolTable();
+    /**
+     * Table id of each variant placeholder by its content
+     */
+    private final Map<String, Integer> variantTables = new HashMap<>();
+    /**
+     * Symbol ids of the values of each table, shared by all templates referring to the table
+     */
+    private final List<int[]> values = new ArrayList<>();
+    /**
+     * Placeholder as written in the grammar and where its values come from for each table
+     */
+    private final List<GenerationProfile.Placeholder> placeholders = new ArrayList<>();
+    /**
+     * Templates of each intent by intent name
+     */
+    private final Map<String, List<UtteranceTemplate>> intents = new HashMap<>();
+
+    /**
+     * Interns a literal or value in the symbol table
+     * @param symbol literal or value
+     * @return symbol id
+     */
+    int intern(final String symbol) {
+        return symbols.intern(symbol);
+    }
+
+    /**
+     * Returns the symbol table holding all literals and values
+     * @return symbol table
+     */
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Returns the table of a variant placeholder added before
+     * @param content variant placeholder without its brackets
+     * @return table id or -1 if there is no table for this content yet
+     */
+    int findVariantTable(final String content) {
+        return variantTables.getOrDefault(content, -1);
+    }
+
+    /**
+     * Adds the table of a variant placeholder
+     * @param content variant placeholder without its brackets
+     * @param values values substituting the placeholder
+     * @param placeholder placeholder as written in the grammar and where its values come from
+     * @return table id
+     */
+    int addVariantTable(final String content, final List<String> values, final GenerationProfile.Placeholder placeholder) {
+        final int table = addTable(values, placeholder);
+        variantTables.put(content, table);
+        return table;
+    }
+
+    /**
+     * Adds the table of a slot placeholder
+     * @param slots slots referenced by the placeholder
+     * @param optional true if the placeholder can be left out (e.g. {{|slot}})
+     * @param placeholder placeholder as written in the grammar
+     * @return table id
+     */
+    int addSlotTable(final List<Slot> slots, final boolean optional, final GenerationProfile.Placeholder placeholder) {
+        final List<String> values = new ArrayList<>(slots.size() + 1);
+        if (optional) values.add("");
+        slots.forEach(slot -> values.add("{" + slot.getName() + "}"));
+        return addTable(values, placeholder);
+    }
+
+    private int addTable(final List<String> values, final GenerationProfile.Placeholder placeholder) {
+        final int[] interned = new int[values.size()];
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = intern(values.get(i));
+        }
+        this.values.add(interned);
+        placeholders.add(placeholder);
+        return this.values.size() - 1;
+    }
+
+    /**
+     * Returns the symbol ids of the values of a table. Must not be modified.
+     * @param table table id
+     * @return symbol ids of the values
+     */
+    int[] getValues(final int table) {
+        return values.get(table);
+    }
+
+    /**
+     * Returns the placeholder a table was created for
+     * @param table table id
+     * @return placeholder as written in the grammar and where its values come from
+     */
+    GenerationProfile.Placeholder getPlaceholder(final int table) {
+        return placeholders.get(table);
+    }
+
+    /**
+     * Adds an intent without templates
+     * @param intentName intent name
+     * @return list to add the templates of the intent to
+     */
+    List<UtteranceTemplate> addIntent(final String intentName) {
+        final List<UtteranceTemplate> templates = new ArrayList<>();
+        intents.put(intentName, templates);
+        return templates;
+    }
+
+    /**
+     * Returns true if an intent was compiled
+     * @param intentName intent name
+     * @return true if the grammar defines the intent
+     */
+    boolean hasIntent(final String intentName) {
+        return intents.containsKey(intentName);
+    }
+
+    /**
+     * Returns the templates of an intent
+     * @param intentName intent name
+     * @return templates in the order of the sample utterances in the grammar or an empty list for unknown intents
+     */
+    List<UtteranceTemplate> getTemplates(final String intentName) {
+        return intents.getOrDefault(intentName, Collections.emptyList());
+    }
+
+    /**
+     * Returns the templates of all intents
+     * @return unmodifiable map of templates by intent name
+     */
+    Map<String, List<UtteranceTemplate>> getIntents() {
+        return Collections.unmodifiableMap(intents);
+    }
+}
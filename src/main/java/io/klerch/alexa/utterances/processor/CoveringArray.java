@@ -0,0 +1,141 @@
+package io.klerch.alexa.utterances.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a pairwise covering array for a number of placeholders with a given number of values each. Every value of a
+ * placeholder appears in at least one row and every pair of values of two different placeholders appears together in
+ * at least one row. The array is built with the In-Parameter-Order strategy which adds one placeholder after another,
+ * first by extending existing rows and then by adding rows for pairs still uncovered.
+ */
+final class CoveringArray {
+    /**
+     * Marks a value not yet assigned in a row
+     */
+    private static final int DONT_CARE = -1;
+
+    private CoveringArray() {
+    }
+
+    /**
+     * Returns rows of value indices covering all pairs of values
+     * @param sizes number of values of each placeholder
+     * @return rows holding one value index per placeholder, ordered the same way permutations are expanded
+     */
+    static List<int[]> pairwise(final int[] sizes) {
+        final int k = sizes.length;
+        if (Arrays.stream(sizes).anyMatch(size -> size == 0)) return new ArrayList<>();
+        if (k < 2) {
+            return IntStream.range(0, k == 0 ? 1 : sizes[0]).mapToObj(value -> k == 0 ? new int[0] : new int[] { value }).collect(Collectors.toList());
+        }
+        // placeholders with most values first result in fewer rows
+        final int[] order = IntStream.range(0, k).boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> sizes[i]).reversed())
+                .mapToInt(Integer::intValue).toArray();
+        final int[] ordered = Arrays.stream(order).map(i -> sizes[i]).toArray();
+
+        final List<int[]> rows = new ArrayList<>();
+        for (int a = 0; a < ordered[0]; a++) {
+            for (int b = 0; b < ordered[1]; b++) {
+                final int[] row = new int[k];
+                Arrays.fill(row, DONT_CARE);
+                row[0] = a;
+                row[1] = b;
+                rows.add(row);
+            }
+        }
+        for (int t = 2; t < k; t++) {
+            extend(rows, ordered, t);
+        }
+        // map back to original placeholder order
+        final List<int[]> result = new ArrayList<>();
+        for (final int[] row : rows) {
+            final int[] mapped = new int[k];
+            for (int t = 0; t < k; t++) {
+                mapped[order[t]] = row[t] == DONT_CARE ? 0 : row[t];
+            }
+            result.add(mapped);
+        }
+        result.sort(CoveringArray::compare);
+        // filling up unassigned values might have produced duplicate rows
+        final List<int[]> distinct = new ArrayList<>();
+        for (final int[] row : result) {
+            if (distinct.isEmpty() || compare(distinct.get(distinct.size() - 1), row) != 0) distinct.add(row);
+        }
+        return distinct;
+    }
+
+    /**
+     * Adds placeholder t to the rows covering all pairs it forms with the placeholders before
+     * @param rows rows assigning values to placeholders 0 to t-1
+     * @param sizes number of values of each placeholder
+     * @param t placeholder to add
+     */
+    private static void extend(final List<int[]> rows, final int[] sizes, final int t) {
+        // uncovered[j][vj][v] is true while value vj of placeholder j never appeared together with value v of placeholder t
+        final boolean[][][] uncovered = new boolean[t][][];
+        for (int j = 0; j < t; j++) {
+            uncovered[j] = new boolean[sizes[j]][sizes[t]];
+            for (final boolean[] values : uncovered[j]) Arrays.fill(values, true);
+        }
+        // horizontal growth: pick the value covering the most new pairs for each existing row
+        for (int r = 0; r < rows.size(); r++) {
+            final int[] row = rows.get(r);
+            int best = r % sizes[t];
+            int bestGain = -1;
+            for (int i = 0; i < sizes[t]; i++) {
+                // start with a different value on each row to spread values evenly on ties
+                final int v = (r + i) % sizes[t];
+                int gain = 0;
+                for (int j = 0; j < t; j++) {
+                    if (row[j] != DONT_CARE && uncovered[j][row[j]][v]) gain++;
+                }
+                if (gain > bestGain) {
+                    best = v;
+                    bestGain = gain;
+                }
+            }
+            row[t] = best;
+            for (int j = 0; j < t; j++) {
+                if (row[j] != DONT_CARE) uncovered[j][row[j]][best] = false;
+            }
+        }
+        // vertical growth: cover remaining pairs by filling unassigned values or adding rows
+        final int firstNewRow = rows.size();
+        for (int j = 0; j < t; j++) {
+            for (int vj = 0; vj < sizes[j]; vj++) {
+                for (int v = 0; v < sizes[t]; v++) {
+                    if (!uncovered[j][vj][v]) continue;
+                    int[] target = null;
+                    for (int r = firstNewRow; r < rows.size() && target == null; r++) {
+                        final int[] row = rows.get(r);
+                        if (row[t] == v && row[j] == DONT_CARE) target = row;
+                    }
+                    if (target == null) {
+                        target = new int[sizes.length];
+                        Arrays.fill(target, DONT_CARE);
+                        target[t] = v;
+                        rows.add(target);
+                    }
+                    target[j] = vj;
+                    // the row covers pairs with all other values assigned so far
+                    for (int l = 0; l < t; l++) {
+                        if (target[l] != DONT_CARE) uncovered[l][target[l]][v] = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int compare(final int[] a, final int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return Integer.compare(a[i], b[i]);
+        }
+        return 0;
+    }
+}
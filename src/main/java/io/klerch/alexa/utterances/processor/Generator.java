@@ -9,17 +9,25 @@ import io.klerch.alexa.utterances.formatter.Formatter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.ImmutableTriple;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Takes file and path references to *.grammar and *.values files or inputs as a list of strings and converts the grammar to an
@@ -34,10 +42,27 @@ public class Generator {
      * Default intent name used if sample utterances found in the grammar not assigned to any intent
      */
     private String DEFAULT_INTENT_NAME = "MyIntent";
+    /**
+     * Bytes a sample utterance occupies in the JSON output in addition to its own characters (indentation, quotes, comma, line break)
+     */
+    private static final int JSON_BYTES_PER_SAMPLE = 16;
+    /**
+     * Number of sample utterances of an intent expanded in parallel before they are handed over to its sample store
+     */
+    private static final int PARALLEL_BATCH_SIZE = 1 << 14;
     /**
      * Before conversion to JSON schema the grammar specification will be broken down to entities represented as "scopes"
      */
     private final Map<GeneratorScope, Map<String, List<String>>> sourceMap = new HashMap<>();
+    /**
+     * Sample utterances of each intent compiled to templates which expand to all their permutations, along with the
+     * value tables of their placeholders
+     */
+    private CompiledGrammar grammar = new CompiledGrammar();
+    /**
+     * Name of values file by placeholder name for all placeholders whose values were read from file
+     */
+    private final Map<String, String> valuesFiles = new HashMap<>();
 
     /**
      * Formatter encapsulates logic to format output string
@@ -63,6 +88,37 @@ public class Generator {
 
     private boolean skipValidation = false;
     private boolean skipCleanup = false;
+    /**
+     * Number of threads used to expand sample utterances. One means sequential processing.
+     */
+    private final int parallelism;
+    /**
+     * Measures generation time per grammar line and placeholder
+     */
+    private final boolean profiling;
+    /**
+     * Limits checked before any sample utterance gets generated
+     */
+    private final long maxUtterancesPerIntent;
+    private final long maxUtterances;
+    private final long maxBytes;
+    /**
+     * Number of sample utterances drawn at random per intent instead of generating all of them
+     */
+    private final long sampleSize;
+    private final long seed;
+    /**
+     * Generates only those sample utterances needed to cover every pair of values of two placeholders in a line
+     */
+    private final boolean pairwise;
+    /**
+     * Looks for sample utterances shared by two intents on the compiled templates rather than on generated samples
+     */
+    private final boolean symbolicValidation;
+    /**
+     * Creates the store holding the sample utterances of an intent
+     */
+    private final Supplier<SampleStore> sampleStore;
 
     /**
      * Generator converts grammar specification with sample utterances, intent mappings and slot values to
@@ -76,6 +132,16 @@ public class Generator {
         invocationName = builder.invocationName;
         skipCleanup = builder.skipCleanup;
         skipValidation = builder.skipValidation;
+        parallelism = builder.parallelism;
+        profiling = builder.profiling;
+        maxUtterancesPerIntent = builder.maxUtterancesPerIntent;
+        maxUtterances = builder.maxUtterances;
+        maxBytes = builder.maxBytes;
+        sampleSize = builder.sampleSize;
+        seed = builder.seed;
+        pairwise = builder.pairwise;
+        symbolicValidation = builder.symbolicValidation;
+        sampleStore = builder.sampleStore;
         model = new InteractionModel(Optional.ofNullable(builder.invocationName).orElse(DEFAULT_INVOCATION_NAME));
     }
 
@@ -86,7 +152,11 @@ public class Generator {
      */
     public void generate() {
         Validate.notNull(grammarFile, "Calling generate() without parameters is only supported when initializing Generator class with reference to an existing *.grammar file");
-        generate(ResourceReader.getLines(grammarFile));
+        // the generation is not handed out, so temporary files of its sample stores can go right away
+        readGrammarFile(lines -> {
+            generate(lines).close();
+            return null;
+        });
     }
 
     /**
@@ -96,25 +166,187 @@ public class Generator {
      * in one line.
      */
     public Generation generate(final List<String> lines) {
+        return generate(lines.stream());
+    }
+
+    private Generation generate(final Stream<String> lines) {
         // process and fill model
         resolve(lines);
-        // post processing on model content
-        if (!skipCleanup) model.cleanUp();
-        if (!skipValidation) model.validate();
+        // overlaps between intents can be found on the templates right away
+        if (symbolicValidation && !skipValidation) findOverlaps();
+        // fail fast before expanding sample utterances in case the output would exceed limits
+        final GenerationPlan plan = plan();
+        enforceLimits(plan);
+        // one pool serves all parallel work of a generation
+        final ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        final GenerationProfile profile;
+        try {
+            profile = profiling ? expandWithProfiling() : null;
+            if (!profiling) expand(pool);
+            // post processing on model content
+            if (!skipCleanup) model.cleanUp(pool);
+            if (!skipValidation) model.validate(!symbolicValidation, pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        // fingerprints let formatters reuse output of intents generated from the same templates before
+        model.getModel().getIntents().forEach(intent -> intent.setFingerprint(fingerprint(intent)));
         // wrap model in result object and send to formatter for output
-        final Generation output = new Generation(model);
-        formatter.print(new Generation(model));
+        final Generation output = new Generation(model, plan, profile);
+        formatter.print(output);
         return output;
     }
 
     /**
-     * Does the actual job of converting the grammar to schema
+     * Generates grammar read from a reader to an Alexa interaction model schema. Lines are processed as they are read,
+     * so the grammar specification is never held in memory as a whole.
+     * @param reader reader of grammar specification as it appears in a typical *.grammar file. It is closed once all
+     * lines were read.
+     */
+    public Generation generate(final Reader reader) {
+        return generate(GrammarLexer.lines(reader));
+    }
+
+    /**
+     * Computes number of sample utterances and estimated output size per intent for the referenced grammar file
+     * without generating any sample utterance. If you did not assign a grammar file reference to the Generator this
+     * method will throw an exception.
+     * @return expected output of the generation
+     */
+    public GenerationPlan count() {
+        Validate.notNull(grammarFile, "Calling count() without parameters is only supported when initializing Generator class with reference to an existing *.grammar file");
+        return readGrammarFile(this::count);
+    }
+
+    /**
+     * Computes number of sample utterances and estimated output size per intent without generating any sample utterance.
+     * @param lines grammar specification line by line as it appears in a typical *.grammar file
+     * @return expected output of the generation
+     */
+    public GenerationPlan count(final List<String> lines) {
+        return count(lines.stream());
+    }
+
+    private GenerationPlan count(final Stream<String> lines) {
+        resolve(lines);
+        return plan();
+    }
+
+    /**
+     * Lazily enumerates the sample utterances of an intent defined in the referenced grammar file without adding
+     * them to the model. If you did not assign a grammar file reference to the Generator this method will throw an exception.
+     * @param intentName name of the intent
+     * @return stream of sample utterances. They are neither deduplicated nor sorted. Stream can be processed in parallel.
+     */
+    public Stream<String> stream(final String intentName) {
+        Validate.notNull(grammarFile, "Calling stream(intentName) is only supported when initializing Generator class with reference to an existing *.grammar file");
+        return readGrammarFile(lines -> stream(lines, intentName));
+    }
+
+    /**
+     * Lazily enumerates the sample utterances of an intent defined in the grammar without adding them to the model.
+     * Only one permutation is held in memory at a time per thread.
+     * @param lines grammar specification line by line as it appears in a typical *.grammar file
+     * @param intentName name of the intent
+     * @return stream of sample utterances. They are neither deduplicated nor sorted. Stream can be processed in parallel.
+     */
+    public Stream<String> stream(final List<String> lines, final String intentName) {
+        return stream(lines.stream(), intentName);
+    }
+
+    private Stream<String> stream(final Stream<String> lines, final String intentName) {
+        resolve(lines);
+        Validate.isTrue(grammar.hasIntent(intentName), "Intent " + intentName + " is not defined in your grammar.");
+        return StreamSupport.stream(new UtteranceSpliterator(grammar.getTemplates(intentName)), false);
+    }
+
+    /**
+     * Returns the sample utterance at the given position among all sample utterances of an intent defined in the
+     * referenced grammar file. If you did not assign a grammar file reference to the Generator this method will throw an exception.
+     * @param intentName name of the intent
+     * @param index position of the sample utterance in the order they are expanded (before deduplication and sorting)
+     * @return sample utterance
+     */
+    public String get(final String intentName, final long index) {
+        Validate.notNull(grammarFile, "Calling get(intentName, index) is only supported when initializing Generator class with reference to an existing *.grammar file");
+        return readGrammarFile(lines -> get(lines, intentName, index));
+    }
+
+    /**
+     * Returns the sample utterance at the given position among all sample utterances of an intent without generating
+     * any other sample utterance.
      * @param lines grammar specification line by line as it appears in a typical *.grammar file
+     * @param intentName name of the intent
+     * @param index position of the sample utterance in the order they are expanded (before deduplication and sorting)
+     * @return sample utterance
+     */
+    public String get(final List<String> lines, final String intentName, final long index) {
+        return get(lines.stream(), intentName, index);
+    }
+
+    private String get(final Stream<String> lines, final String intentName, final long index) {
+        resolve(lines);
+        Validate.isTrue(grammar.hasIntent(intentName), "Intent " + intentName + " is not defined in your grammar.");
+        return new UtteranceIndex(grammar.getTemplates(intentName)).get(index);
+    }
+
+    /**
+     * Draws sample utterances of an intent defined in the referenced grammar file uniformly at random. If you did not
+     * assign a grammar file reference to the Generator this method will throw an exception.
+     * @param intentName name of the intent
+     * @param numberOfSamples number of sample utterances to draw
+     * @param seed seed for the random number generator. Same seed results in same sample utterances.
+     * @return sample utterances. All sample utterances of the intent if there are not more than requested.
      */
-    private void resolve(final List<String> lines) {
+    public List<String> sample(final String intentName, final long numberOfSamples, final long seed) {
+        Validate.notNull(grammarFile, "Calling sample(intentName, numberOfSamples, seed) is only supported when initializing Generator class with reference to an existing *.grammar file");
+        return readGrammarFile(lines -> sample(lines, intentName, numberOfSamples, seed));
+    }
+
+    /**
+     * Draws sample utterances of an intent uniformly at random without generating the others. Duplicates in the grammar
+     * are not removed, so the result might contain the same sample utterance more than once.
+     * @param lines grammar specification line by line as it appears in a typical *.grammar file
+     * @param intentName name of the intent
+     * @param numberOfSamples number of sample utterances to draw
+     * @param seed seed for the random number generator. Same seed results in same sample utterances.
+     * @return sample utterances. All sample utterances of the intent if there are not more than requested.
+     */
+    public List<String> sample(final List<String> lines, final String intentName, final long numberOfSamples, final long seed) {
+        return sample(lines.stream(), intentName, numberOfSamples, seed);
+    }
+
+    private List<String> sample(final Stream<String> lines, final String intentName, final long numberOfSamples, final long seed) {
+        resolve(lines);
+        Validate.isTrue(grammar.hasIntent(intentName), "Intent " + intentName + " is not defined in your grammar.");
+        return new UtteranceIndex(grammar.getTemplates(intentName)).sample(numberOfSamples, random(seed, intentName));
+    }
+
+    /**
+     * Reads the referenced grammar file line by line, so it is never held in memory as a whole. The file is decoded in
+     * the default charset like Scanner does and closed once the task is done.
+     * @param task task processing the lines of the grammar file
+     * @return result of the task
+     */
+    private <T> T readGrammarFile(final Function<Stream<String>, T> task) {
+        try (final Reader reader = Files.newBufferedReader(grammarFile.toPath(), Charset.defaultCharset())) {
+            return task.apply(GrammarLexer.lines(reader));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Does the actual job of converting the grammar to schema. Sample utterances are compiled to templates but not yet
+     * expanded.
+     * @param lines grammar specification line by line as it appears in a typical *.grammar file
+     */
+    private void resolve(final Stream<String> lines) {
+        // start over with an empty model
+        model = new InteractionModel(Optional.ofNullable(invocationName).orElse(DEFAULT_INVOCATION_NAME));
+        grammar = new CompiledGrammar();
+        valuesFiles.clear();
         preprocess(lines);
-        // introduce a new entity which holds all the resolved placeholders in utterances
-        sourceMap.putIfAbsent(GeneratorScope.VARIANT_PHRASES, new HashMap<>());
         // get invocation name from file or use default
         Optional.ofNullable(sourceMap.get(GeneratorScope.INVOCATION)).ifPresent(invocation -> {
             Optional.ofNullable(invocation.get("Invocation")).filter(i -> !i.isEmpty() && StringUtils.isNotBlank(i.get(0))).ifPresent(name -> {
@@ -130,124 +362,12 @@ public class Generator {
         });
         sourceMap.get(GeneratorScope.INTENT).forEach((intentName, utterances) -> {
             // go from one to many utterances by resolving placeholders (slots, alternate phrases)
-            final Intent intent = model.addIntent(intentName);
-            final List<String> resolvedUtterances = new ArrayList<>();
+            final Intent intent = model.addIntent(intentName, sampleStore.get());
+            final List<UtteranceTemplate> templatesOfIntent = grammar.addIntent(intentName);
             final List<Slot> slotsOfIntent = new ArrayList<>();
             utterances.forEach(utteranceLine -> {
-                final StringBuffer utteranceResolvedSlotsBuffer = new StringBuffer();
-                // extract {{slot}} placeholders
-                final Matcher slotPlaceholders = Resolver.slotInUtteranceDefinition.matcher(utteranceLine);
-                final List<Slot> slotsInUtterance = new ArrayList<>();
-                while (slotPlaceholders.find()) {
-                    final List<Slot> slotsInGroup = new ArrayList<>();
-                    final String placeholder = slotPlaceholders.group(0).replaceAll("[{}]", "");
-                    // substitute slot placeholder with a random id which is associated to the collection of slots
-                    // hold slot key in case it is defined in order to apply it to all slot type references in the placeholder
-                    final AtomicReference<String> slotKey = new AtomicReference<>("");
-                    final AtomicBoolean hasWhitespace = new AtomicBoolean(false);
-                    // slot placeholder can hold variants as well, split and go through them
-                    Arrays.stream(placeholder.split("[|,;]", -1)).distinct().map(String::trim).forEach(slotRef -> {
-                        if (StringUtils.isNotBlank(slotRef)) {
-                            final String[] keyValue = slotRef.split(":");
-                            final String slotType = keyValue.length > 1 ? keyValue[1] : slotRef;
-                            // slot name as defined otherwise key as defined for preceding value otherwise key is value itself
-                            final String slotName = keyValue.length > 1 && StringUtils.isNotBlank(keyValue[0]) ? keyValue[0] :
-                                    StringUtils.isNotBlank(slotKey.get()) && (!slotKey.get().startsWith("AMAZON_")) ? slotKey.get() : slotRef.replaceAll("[:.]", "_");
-                            // ensure unique slot name within utterance
-                            slotKey.set(slotName);
-                            final String slotNameUnique = Resolver.resolveToUniqueSlotName(slotsInUtterance, slotName);
-                            // keep track of slot in utterance to add a reference for the intent later on
-                            final Slot slot = new Slot(slotNameUnique, slotType);
-                            slotsInGroup.add(slot);
-                            slotsInUtterance.add(slot);
-                        } else {
-                            hasWhitespace.set(true);
-                        }
-                    });
-                    // since slot alias could have changed we need the hash key for the new name/type pairs
-                    final String updatedPlaceholder = StringUtils.join(slotsInGroup.stream().map(s -> s.getName() + ":" + s.getType()), "|");
-                    final String slotPlaceholderId = Integer.toString(updatedPlaceholder.hashCode());
-
-                    if (!sourceMap.get(GeneratorScope.VARIANT_PHRASES).containsKey(slotPlaceholderId)) {
-                        final List<String> slots = new ArrayList<>();
-                        // if this placeholder got a leading or trailing separator keep in mind that whitespace is an option
-                        if (hasWhitespace.get()) slots.add("");
-                        slotsInGroup.forEach(slot -> {
-                            slots.add(slot == null ? "" : "{" + slot.getName() + "}");
-                        });
-                        sourceMap.get(GeneratorScope.VARIANT_PHRASES).put(slotPlaceholderId, slots);
-                    }
-                    // substitute slot collection with its hash key
-                    slotPlaceholders.appendReplacement(utteranceResolvedSlotsBuffer, Matcher.quoteReplacement("{!" + slotPlaceholderId + "}"));
-                }
-                slotsInUtterance.forEach(slotInUtterance -> {
-                    if (slotsOfIntent.stream().noneMatch(s -> s.getName().equals(slotInUtterance.getName()))) {
-                        slotsOfIntent.add(slotInUtterance);
-                    }
-                    final String slotTypeName = slotInUtterance.getType();
-                    // looking for slot values not defined in grammar file but sitting in values files
-                    if (!sourceMap.get(GeneratorScope.PLACEHOLDER).containsKey(slotTypeName)) {
-                        ResourceReader.getPlaceholderValueList(valuesFilePath, slotTypeName).map(Resolver::resolveSlotValues).ifPresent(values -> {
-                            sourceMap.get(GeneratorScope.PLACEHOLDER).put(slotTypeName, values);
-                        });
-                    }
-                });
-                slotPlaceholders.appendTail(utteranceResolvedSlotsBuffer);
-                // get new utterance resolved by slot definitions which are now represented by {!UUID}
-                final String utteranceResolvedSlots = utteranceResolvedSlotsBuffer.toString();
-                final StringBuffer utteranceResolvedPlaceholdersBuffer = new StringBuffer();
-                // extract all remaining placeholders while ignoring the already resolved {!UUID} slot placeholders
-                final Matcher variantPlaceholders = Resolver.placeholderInUtteranceExcludingResolved.matcher(utteranceResolvedSlots);
-                while (variantPlaceholders.find()) {
-                    final String placeholder = variantPlaceholders.group(0).replaceAll("[{}]", "");
-                    final String variantPlaceholderId = Integer.toString(placeholder.hashCode());
-                    // skip resolving values if it has already been done for the same string in a previous placeholder
-                    if (!sourceMap.get(GeneratorScope.VARIANT_PHRASES).containsKey(variantPlaceholderId)) {
-                        final List<String> values = new ArrayList<>();
-                        // is not an alternate phrasing (e.g. {bookingItem} and not {my,alternate,phrases})
-                        final boolean alternate = placeholder.matches(".*[|,;].*");
-                        if (!placeholder.matches(".*[|,;].*")) {
-                            // first check if this variant is referencing a placeholder
-                            if (sourceMap.get(GeneratorScope.PLACEHOLDER).containsKey(placeholder)) {
-                                // if yes, resolve it by adding all values as variant phrasings
-                                values.addAll(sourceMap.get(GeneratorScope.PLACEHOLDER).get(placeholder).stream().map(String::trim).map(value -> value.contains(":") ? value.split(":", -1)[1] : value).collect(Collectors.toList()));
-                            }
-                            // just in case this is
-                            else {
-                                // try get placeholder values from file if path to values files set
-                                // if it could not be resolved (no values file with placeholder as file key) the placeholder itself will be the resulting string
-                                final List<String> valuesList = ResourceReader.getPlaceholderValueList(valuesFilePath, placeholder).map(Resolver::resolveSlotValues).orElse(Collections.singletonList(placeholder));
-                                // store in source map to only read values from file once
-                                sourceMap.get(GeneratorScope.PLACEHOLDER).put(placeholder, valuesList);
-                                values.addAll(valuesList.stream().map(value -> value.split(":", -1)[0]).collect(Collectors.toList()));
-                            }
-                        }
-                        else {
-                            // otherwise add all variant phrases to the new entity
-                            values.addAll(Arrays.stream(placeholder.split("[|,;]", -1)).map(String::trim).collect(Collectors.toList()));
-                        }
-                        sourceMap.get(GeneratorScope.VARIANT_PHRASES).put(variantPlaceholderId, values);
-                    }
-                    variantPlaceholders.appendReplacement(utteranceResolvedPlaceholdersBuffer, Matcher.quoteReplacement("{!" + variantPlaceholderId + "}"));
-                }
-                variantPlaceholders.appendTail(utteranceResolvedPlaceholdersBuffer);
-                // finally add utterance to list whose placeholders were entirely resolved
-                resolvedUtterances.add(utteranceResolvedPlaceholdersBuffer.toString());
-            });
-            resolvedUtterances.forEach(resolvedUtterance -> {
-                // list of pairs holds all placeholder value collections relevant for this utterance
-                final List<Pair<String, List<String>>> resolvedPlaceholdersForUtterance = new ArrayList<>();
-                // now get all the resolved placeholders currently existing in the utterances as {!Hashkey}
-                final Matcher resolvedPlaceholders = Resolver.resolvedPlaceholders.matcher(resolvedUtterance);
-                while(resolvedPlaceholders.find()) {
-                    final String placeholder = resolvedPlaceholders.group(0);
-                    // extract id from the placeholder to look up the corresponding value collection in the source map
-                    final String placeholderId = placeholder.replaceAll("[{}!]", "");
-                    resolvedPlaceholdersForUtterance.add(new ImmutablePair<>(placeholder, sourceMap.get(GeneratorScope.VARIANT_PHRASES).get(placeholderId)));
-                }
-                // recursively substitute placeholders in utterances which generates and adds all permutations to the intent
-                generatePermutations(resolvedPlaceholdersForUtterance, 0, resolvedUtterance, intent);
-
+                final List<GrammarLexer.Token> tokens = GrammarLexer.tokenize(utteranceLine);
+                templatesOfIntent.add(tokens != null ? compile(utteranceLine, tokens, slotsOfIntent) : compileWithPatterns(utteranceLine, slotsOfIntent));
             });
             // add all the slots referenced in the utterances of this intent
             slotsOfIntent.forEach(slot -> {
@@ -269,34 +389,412 @@ public class Generator {
     }
 
     /**
-     * Recursively resolves placeholders and variant phrasing from 1 to N utterances
-     * @param lists list of placeholders and their actual substitutions
-     * @param depth depth
-     * @param utterance currently processed utterance (goes down the path until all placeholders have been resolved)
-     * @param intent intent of the currently processed utterance
+     * Compiles an utterance cut into tokens by the lexer. Slots are resolved before variants as a variant might refer to
+     * values read from file for a slot type of the same utterance.
+     * @param utteranceLine utterance as written in the grammar
+     * @param tokens tokens of the utterance
+     * @param slotsOfIntent slots of the intent found so far
+     * @return compiled utterance template
+     */
+    private UtteranceTemplate compile(final String utteranceLine, final List<GrammarLexer.Token> tokens, final List<Slot> slotsOfIntent) {
+        final List<Slot> slotsInUtterance = new ArrayList<>();
+        final int[] slotTables = new int[tokens.size()];
+        int numberOfPlaceholders = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.get(i).getType() == GrammarLexer.TokenType.SLOT) slotTables[i] = resolveSlots(tokens.get(i).getText(), slotsInUtterance);
+            if (tokens.get(i).getType() != GrammarLexer.TokenType.LITERAL) numberOfPlaceholders++;
+        }
+        addSlots(slotsInUtterance, slotsOfIntent);
+        final List<String> literals = new ArrayList<>();
+        final int[] tables = new int[numberOfPlaceholders];
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            final GrammarLexer.Token token = tokens.get(i);
+            if (token.getType() == GrammarLexer.TokenType.LITERAL) {
+                literal.append(token.getText());
+                continue;
+            }
+            tables[literals.size()] = token.getType() == GrammarLexer.TokenType.SLOT ? slotTables[i] : resolveVariants(token.getText());
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+        literals.add(literal.toString());
+        return UtteranceTemplate.compile(utteranceLine, literals, tables, grammar);
+    }
+
+    /**
+     * Compiles an utterance the lexer reported as irregular by substituting slots and then variants with the patterns
+     * in Resolver
+     * @param utteranceLine utterance as written in the grammar
+     * @param slotsOfIntent slots of the intent found so far
+     * @return compiled utterance template
+     */
+    private UtteranceTemplate compileWithPatterns(final String utteranceLine, final List<Slot> slotsOfIntent) {
+        final StringBuffer utteranceResolvedSlotsBuffer = new StringBuffer();
+        // extract {{slot}} placeholders
+        final Matcher slotPlaceholders = Resolver.slotInUtteranceDefinition.matcher(utteranceLine);
+        final List<Slot> slotsInUtterance = new ArrayList<>();
+        // references to tables get a prefix which does not follow "{!" anywhere in the utterance to not mistake text for them
+        String prefix = "#";
+        while (utteranceLine.contains("{!" + prefix)) prefix += "#";
+        final Map<String, Integer> substituted = new HashMap<>();
+        while (slotPlaceholders.find()) {
+            final int slotTable = resolveSlots(slotPlaceholders.group(0), slotsInUtterance);
+            substituted.put(prefix + slotTable, slotTable);
+            // substitute slot collection with a reference to its table
+            slotPlaceholders.appendReplacement(utteranceResolvedSlotsBuffer, Matcher.quoteReplacement("{!" + prefix + slotTable + "}"));
+        }
+        addSlots(slotsInUtterance, slotsOfIntent);
+        slotPlaceholders.appendTail(utteranceResolvedSlotsBuffer);
+        // get new utterance resolved by slot definitions which are now represented by {!#id}
+        final String utteranceResolvedSlots = utteranceResolvedSlotsBuffer.toString();
+        final StringBuffer utteranceResolvedPlaceholdersBuffer = new StringBuffer();
+        // extract all remaining placeholders while ignoring the already resolved {!#id} slot placeholders
+        final Matcher variantPlaceholders = Resolver.placeholderInUtteranceExcludingResolved.matcher(utteranceResolvedSlots);
+        while (variantPlaceholders.find()) {
+            final int variantTable = resolveVariants(variantPlaceholders.group(0));
+            substituted.put(prefix + variantTable, variantTable);
+            variantPlaceholders.appendReplacement(utteranceResolvedPlaceholdersBuffer, Matcher.quoteReplacement("{!" + prefix + variantTable + "}"));
+        }
+        variantPlaceholders.appendTail(utteranceResolvedPlaceholdersBuffer);
+        // finally compile utterance whose placeholders were entirely resolved so it can generate all its permutations later on
+        return UtteranceTemplate.compile(utteranceLine, utteranceResolvedPlaceholdersBuffer.toString(), substituted, grammar);
+    }
+
+    /**
+     * Resolves a slot placeholder to the slots it references and registers them as values of a new table
+     * @param slotPlaceholder slot placeholder as written in the utterance (e.g. {{slot:type}})
+     * @param slotsInUtterance slots found in the utterance so far
+     * @return id of the table the slot placeholder gets substituted with
+     */
+    private int resolveSlots(final String slotPlaceholder, final List<Slot> slotsInUtterance) {
+        final List<Slot> slotsInGroup = new ArrayList<>();
+        final String placeholder = StringUtils.replaceChars(slotPlaceholder, "{}", "");
+        // hold slot key in case it is defined in order to apply it to all slot type references in the placeholder
+        final AtomicReference<String> slotKey = new AtomicReference<>("");
+        final AtomicBoolean hasWhitespace = new AtomicBoolean(false);
+        // slot placeholder can hold variants as well, split and go through them
+        GrammarLexer.splitAlternatives(placeholder).stream().distinct().map(String::trim).forEach(slotRef -> {
+            if (StringUtils.isNotBlank(slotRef)) {
+                final String[] keyValue = slotRef.split(":");
+                final String slotType = keyValue.length > 1 ? keyValue[1] : slotRef;
+                // slot name as defined otherwise key as defined for preceding value otherwise key is value itself
+                final String slotName = keyValue.length > 1 && StringUtils.isNotBlank(keyValue[0]) ? keyValue[0] :
+                        StringUtils.isNotBlank(slotKey.get()) && (!slotKey.get().startsWith("AMAZON_")) ? slotKey.get() : StringUtils.replaceChars(slotRef, ":.", "__");
+                // ensure unique slot name within utterance
+                slotKey.set(slotName);
+                final String slotNameUnique = Resolver.resolveToUniqueSlotName(slotsInUtterance, slotName);
+                // keep track of slot in utterance to add a reference for the intent later on
+                final Slot slot = new Slot(slotNameUnique, slotType);
+                slotsInGroup.add(slot);
+                slotsInUtterance.add(slot);
+            } else {
+                hasWhitespace.set(true);
+            }
+        });
+        // if this placeholder got a leading or trailing separator keep in mind that whitespace is an option
+        final int numberOfValues = slotsInGroup.size() + (hasWhitespace.get() ? 1 : 0);
+        return grammar.addSlotTable(slotsInGroup, hasWhitespace.get(), new GenerationProfile.Placeholder(slotPlaceholder, "slot", numberOfValues));
+    }
+
+    /**
+     * Adds the slots of an utterance to the slots of its intent and looks up values files for their slot types
+     * @param slotsInUtterance slots of the utterance
+     * @param slotsOfIntent slots of the intent found so far
      */
-    private void generatePermutations(final List<Pair<String, List<String>>> lists, final int depth, final String utterance, final Intent intent)
-    {
-        if(depth == lists.size()) {
-            intent.addSample(utterance.trim().replaceAll("\\s+"," "));
+    private void addSlots(final List<Slot> slotsInUtterance, final List<Slot> slotsOfIntent) {
+        slotsInUtterance.forEach(slotInUtterance -> {
+            if (slotsOfIntent.stream().noneMatch(s -> s.getName().equals(slotInUtterance.getName()))) {
+                slotsOfIntent.add(slotInUtterance);
+            }
+            final String slotTypeName = slotInUtterance.getType();
+            // looking for slot values not defined in grammar file but sitting in values files
+            if (!sourceMap.get(GeneratorScope.PLACEHOLDER).containsKey(slotTypeName)) {
+                ResourceReader.getPlaceholderValues(valuesFilePath, slotTypeName).ifPresent(values -> {
+                    sourceMap.get(GeneratorScope.PLACEHOLDER).put(slotTypeName, values);
+                    valuesFiles.put(slotTypeName, slotTypeName + ".values");
+                });
+            }
+        });
+    }
+
+    /**
+     * Resolves a variant placeholder to its values and registers them as values of a new table
+     * @param variantPlaceholder variant placeholder as written in the utterance (e.g. {text1|text2} or {placeholder})
+     * @return id of the table the variant placeholder gets substituted with
+     */
+    private int resolveVariants(final String variantPlaceholder) {
+        final String placeholder = StringUtils.replaceChars(variantPlaceholder, "{}", "");
+        // skip resolving values if it has already been done for the same string in a previous placeholder
+        int variantTable = grammar.findVariantTable(placeholder);
+        if (variantTable < 0) {
+            final List<String> values = new ArrayList<>();
+            // is not an alternate phrasing (e.g. {bookingItem} and not {my,alternate,phrases})
+            final boolean alternate = GrammarLexer.isAlternative(placeholder);
+            final String source;
+            if (!alternate) {
+                // first check if this variant is referencing a placeholder
+                if (sourceMap.get(GeneratorScope.PLACEHOLDER).containsKey(placeholder)) {
+                    // if yes, resolve it by adding all values as variant phrasings
+                    values.addAll(sourceMap.get(GeneratorScope.PLACEHOLDER).get(placeholder).stream().map(String::trim).map(value -> value.contains(":") ? value.split(":", -1)[1] : value).collect(Collectors.toList()));
+                    source = valuesFiles.getOrDefault(placeholder, "grammar");
+                }
+                // just in case this is
+                else {
+                    // try get placeholder values from file if path to values files set
+                    // if it could not be resolved (no values file with placeholder as file key) the placeholder itself will be the resulting string
+                    final Optional<List<String>> valuesFromFile = ResourceReader.getPlaceholderValues(valuesFilePath, placeholder);
+                    final List<String> valuesList = valuesFromFile.orElse(Collections.singletonList(placeholder));
+                    // store in source map to only read values from file once
+                    sourceMap.get(GeneratorScope.PLACEHOLDER).put(placeholder, valuesList);
+                    values.addAll(valuesList.stream().map(value -> value.split(":", -1)[0]).collect(Collectors.toList()));
+                    source = valuesFromFile.isPresent() ? placeholder + ".values" : "unresolved";
+                    if (valuesFromFile.isPresent()) valuesFiles.put(placeholder, source);
+                }
+            }
+            else {
+                // otherwise add all variant phrases to the new entity
+                values.addAll(GrammarLexer.splitAlternatives(placeholder).stream().map(String::trim).collect(Collectors.toList()));
+                source = "inline";
+            }
+            variantTable = grammar.addVariantTable(placeholder, values, new GenerationProfile.Placeholder(variantPlaceholder, source, values.size()));
+        }
+        return variantTable;
+    }
+
+    /**
+     * Computes the expected output from the compiled templates. The number of sample utterances of a template is the
+     * product of the number of values of its placeholders.
+     * @return expected output of the generation
+     */
+    private GenerationPlan plan() {
+        final GenerationPlan plan = new GenerationPlan();
+        grammar.getIntents().forEach((intentName, templatesOfIntent) -> {
+            final long numberOfUtterances = templatesOfIntent.stream().mapToLong(this::size).reduce(0, Generator::add);
+            final long estimatedBytes = templatesOfIntent.stream().mapToLong(this::estimateBytes).reduce(0, Generator::add);
+            final long overhead = numberOfUtterances > Long.MAX_VALUE / JSON_BYTES_PER_SAMPLE ? Long.MAX_VALUE : numberOfUtterances * JSON_BYTES_PER_SAMPLE;
+            if (numberOfUtterances > sampleSize) {
+                // only a share of the sample utterances gets drawn
+                final double share = (double) sampleSize / numberOfUtterances;
+                plan.addIntent(intentName, templatesOfIntent.size(), sampleSize, (long) (add(estimatedBytes, overhead) * share));
+            } else {
+                plan.addIntent(intentName, templatesOfIntent.size(), numberOfUtterances, add(estimatedBytes, overhead));
+            }
+        });
+        return plan;
+    }
+
+    /**
+     * Throws an exception listing all exceeded limits
+     * @param plan expected output of the generation
+     */
+    private void enforceLimits(final GenerationPlan plan) {
+        final List<String> violations = new ArrayList<>();
+        plan.getIntents().stream().filter(intent -> intent.getNumberOfUtterances() > maxUtterancesPerIntent).forEach(intent -> {
+            violations.add("Intent " + intent.getName() + " would get " + intent.getNumberOfUtterances() + " sample utterances (limit: " + maxUtterancesPerIntent + ").");
+        });
+        if (plan.getNumberOfUtterances() > maxUtterances) {
+            violations.add("Your grammar would generate " + plan.getNumberOfUtterances() + " sample utterances in total (limit: " + maxUtterances + ").");
+        }
+        if (plan.getEstimatedBytes() > maxBytes) {
+            violations.add("Your output would have an estimated size of " + plan.getEstimatedBytes() + " bytes (limit: " + maxBytes + ").");
+        }
+        Validate.isTrue(violations.isEmpty(), "Generation stopped before generating any sample utterance.\n" + StringUtils.join(violations, "\n"));
+    }
+
+    /**
+     * Looks for sample utterances shared by two intents without expanding the templates. Intents are compared in the
+     * same order as validation of the model does and the first overlap found is reported with the number of distinct
+     * shared sample utterances and the alphabetically first of them.
+     */
+    private void findOverlaps() {
+        final List<Intent> intents = new ArrayList<>(model.getModel().getIntents());
+        // cleanup sorts intents by name before validation
+        if (!skipCleanup) intents.sort(Comparator.comparing(Intent::getName));
+        final List<UtteranceAutomaton> automata = intents.stream().map(intent -> new UtteranceAutomaton(grammar.getTemplates(intent.getName()))).collect(Collectors.toList());
+        for (int i = 0; i < automata.size() - 1; i++) {
+            for (int j = i + 1; j < automata.size(); j++) {
+                final UtteranceAutomaton.Intersection overlap = automata.get(i).intersect(automata.get(j));
+                if (!overlap.isEmpty()) {
+                    throw new IllegalArgumentException("You got " + overlap.count() + " overlapping sample utterances in your intents " + intents.get(i).getName() + " and " + intents.get(j).getName() + " (e.g. " + overlap.first() + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sample utterances a template expands to in the configured generation mode
+     * @param template utterance template
+     * @return number of sample utterances
+     */
+    private long size(final UtteranceTemplate template) {
+        return pairwise ? template.pairwise().size() : template.size();
+    }
+
+    /**
+     * Estimates the number of bytes of the sample utterances a template expands to in the configured generation mode
+     * @param template utterance template
+     * @return estimated number of bytes
+     */
+    private long estimateBytes(final UtteranceTemplate template) {
+        if (!pairwise || template.size() == 0) return template.estimateBytes();
+        return (long) ((double) template.estimateBytes() * template.pairwise().size() / template.size());
+    }
+
+    /**
+     * Expands a template in the configured generation mode
+     * @param template utterance template
+     * @param consumer receives each sample utterance
+     */
+    private void expand(final UtteranceTemplate template, final Consumer<String> consumer) {
+        if (pairwise) {
+            template.forEachPairwise(consumer);
+        } else {
+            template.forEach(consumer);
+        }
+    }
+
+    /**
+     * Returns the consumer adding sample utterances to an intent. Duplicates are dropped right away if cleanup
+     * removes them later anyway.
+     * @param intent intent to add sample utterances to
+     * @return consumer of sample utterances
+     */
+    private Consumer<String> sink(final Intent intent) {
+        return skipCleanup ? intent::addSample : intent::addUniqueSample;
+    }
+
+    /**
+     * Returns a fingerprint of the compiled templates of an intent together with the settings affecting which sample
+     * utterances they expand to and in which order
+     * @param intent intent
+     * @return fingerprint
+     */
+    private long fingerprint(final Intent intent) {
+        long hash = fingerprint(0xcbf29ce484222325L, intent.getName());
+        hash = fingerprint(hash, skipCleanup + "|" + pairwise + "|" + sampleSize + "|" + seed + "|" + intent.getSampleStore().getClass().getName());
+        for (final UtteranceTemplate template : grammar.getTemplates(intent.getName())) {
+            hash = fingerprint(hash, template.getSource());
+            // symbol ids depend on the grammar, so the strings behind them are hashed
+            for (final int literal : template.getLiterals()) {
+                hash = fingerprint(hash, template.getSymbol(literal));
+            }
+            for (final int[] values : template.getValues()) {
+                hash = fingerprint(hash, Integer.toString(values.length));
+                for (final int value : values) {
+                    hash = fingerprint(hash, template.getSymbol(value));
+                }
+            }
+        }
+        // 0 is reserved for unknown fingerprints
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Continues a fingerprint with the length and characters of a string (FNV-1a followed by the MurmurHash3 finalizer)
+     */
+    private static long fingerprint(long hash, final String text) {
+        hash = (hash ^ text.length()) * 0x100000001b3L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long add(final long a, final long b) {
+        final long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Expands the compiled templates and adds all permutations as sample utterances to their intents
+     * @param pool pool of the generation for parallel processing or null for sequential processing
+     */
+    private void expand(final ForkJoinPool pool) {
+        if (sampleSize < Long.MAX_VALUE) {
+            expandSample();
+            return;
+        }
+        if (pool != null && !pairwise) {
+            expandInParallel(pool);
             return;
         }
+        model.getModel().getIntents().forEach(intent -> {
+            grammar.getTemplates(intent.getName()).forEach(template -> expand(template, sink(intent)));
+        });
+    }
+
+    /**
+     * Draws a uniformly random selection of permutations per intent and adds them as sample utterances
+     */
+    private void expandSample() {
+        model.getModel().getIntents().forEach(intent -> {
+            new UtteranceIndex(grammar.getTemplates(intent.getName())).sample(sampleSize, random(seed, intent.getName())).forEach(sink(intent));
+        });
+    }
+
+    /**
+     * Returns a random number generator for an intent. Draws do not depend on the order or number of other intents.
+     * @param seed seed given by the user
+     * @param intentName name of the intent
+     * @return random number generator
+     */
+    private static SplittableRandom random(final long seed, final String intentName) {
+        return new SplittableRandom(seed * 31 + intentName.hashCode());
+    }
+
+    /**
+     * Expands the compiled templates one after another while measuring the time it takes for each of them
+     * @return measurements per grammar line and placeholder
+     */
+    private GenerationProfile expandWithProfiling() {
+        final GenerationProfile profile = new GenerationProfile();
+        model.getModel().getIntents().forEach(intent -> {
+            grammar.getTemplates(intent.getName()).forEach(template -> {
+                final long start = System.nanoTime();
+                expand(template, sink(intent));
+                final long nanos = System.nanoTime() - start;
+                profile.addLine(intent.getName(), template.getSource(), size(template), nanos, Arrays.stream(template.getTables()).mapToObj(grammar::getPlaceholder).collect(Collectors.toList()));
+            });
+        });
+        return profile;
+    }
 
-        for(int i = 0; i < lists.get(depth).getValue().size(); ++i) {
-            final Pair<String, List<String>> placeholder = lists.get(depth);
-            final String placeholderValue = placeholder.getValue().get(i);
-            final String placeholderName = placeholder.getKey();
-            generatePermutations(lists, depth + 1, utterance.replaceFirst(Pattern.quote(placeholderName), placeholderValue), intent);
+    /**
+     * Expands the compiled templates of all intents concurrently. The permutations of one intent are split up into
+     * index ranges so that even a single template with a huge number of permutations is spread across all threads.
+     * Ranges are expanded batch by batch and handed over to the sample store in order, so sample utterances end up in
+     * the same order as with sequential processing and only one batch per intent is held in memory on top of the store.
+     * @param pool pool of the generation
+     */
+    private void expandInParallel(final ForkJoinPool pool) {
+        try {
+            pool.submit(() -> model.getModel().getIntents().parallelStream().forEach(intent -> {
+                final UtteranceSpliterator permutations = new UtteranceSpliterator(grammar.getTemplates(intent.getName()));
+                final Consumer<String> sink = sink(intent);
+                final long size = permutations.estimateSize();
+                for (long from = 0; from < size; from += PARALLEL_BATCH_SIZE) {
+                    StreamSupport.stream(permutations.slice(from, Math.min(size, from + PARALLEL_BATCH_SIZE)), true).forEachOrdered(sink);
+                }
+            })).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
         }
     }
 
     /**
      * Before conversion to JSON schema the grammar specification will be broken down to entities represented as "scopes" and
-     * put into the source map. This method is called by one of the generate methods.
-     * @param lines
+     * put into the source map. Lines are classified by the lexer one at a time as they come in. This method is called by
+     * one of the generate methods.
+     * @param lines grammar specification line by line
      */
-    @SuppressWarnings("unchecked")
-    private void preprocess(final List<String> lines) {
+    private void preprocess(final Stream<String> lines) {
         sourceMap.put(GeneratorScope.PLACEHOLDER, new HashMap<>());
         sourceMap.put(GeneratorScope.INVOCATION, new HashMap<>());
         sourceMap.put(GeneratorScope.INTENT, new HashMap<>());
@@ -304,30 +802,23 @@ public class Generator {
         // keep track of last declared scope as not each line has it (default to dummy intent MyIntent
         final AtomicReference<ImmutablePair<GeneratorScope, String>> currentScope = new AtomicReference<>(new ImmutablePair<>(GeneratorScope.INTENT, DEFAULT_INTENT_NAME));
 
-        lines.stream()
-                .map(String::trim) // eliminate leading and trailing spaces
-                .filter(line -> !line.startsWith("//")) // ignore comment lines
-                .map(line -> line.split("//")[0].trim()) // eliminate inline comments
-                .filter(StringUtils::isNotBlank) // ignore blank lines
+        lines.map(GrammarLexer::classify)
+                .filter(Objects::nonNull) // ignore blank lines and comments
                 .forEach(line -> {
                     // check for any new definition in the current line
-                    final ImmutableTriple<GeneratorScope, String, String> resolution = Resolver.resolveInvocationDefinition(line).map(l -> new ImmutableTriple(GeneratorScope.INVOCATION, l.left, l.right)).orElse(
-                            Resolver.resolveIntentDefinition(line).map(l -> new ImmutableTriple(GeneratorScope.INTENT, l.left, l.right)).orElse(
-                                    Resolver.resolveSlotTypeDefinition(line).map(l -> new ImmutableTriple(GeneratorScope.PLACEHOLDER, l.left, l.right))
-                                            .orElse(null)));
-                    Optional.ofNullable(resolution).ifPresent(res -> {
-                        final GeneratorScope newScope = res.left;
-                        final String definitionKey = res.middle;
-                        final String definitionVal = res.right;
+                    if (line.getScope() != null) {
+                        final GeneratorScope newScope = line.getScope();
+                        final String definitionKey = line.getKey();
+                        final String definitionVal = line.getValue();
                         // ensure entity is registered within scope (e.g. MyIntent in scope INTENT)
                         sourceMap.get(newScope).putIfAbsent(definitionKey, new ArrayList<>());
                         // add value to entity in scope if not blank (e.g. utterance for MyIntent in scope INTENT
                         if (StringUtils.isNotBlank(definitionVal)) sourceMap.get(newScope).get(definitionKey).add(definitionVal);
                         // remember this scope for upcoming lines
                         currentScope.set(new ImmutablePair<>(newScope, definitionKey));
-                    });
+                    }
                     // if line does not have a definition it belongs to the last processed definition (e.g. an INTENT)
-                    if (resolution == null) {
+                    else {
                         // do not follow invocation scope in case invocation name has already been set
                         if (currentScope.get().left.equals(GeneratorScope.INVOCATION) &&
                                 !sourceMap.get(GeneratorScope.INVOCATION).get(currentScope.get().right).isEmpty() &&
@@ -336,7 +827,7 @@ public class Generator {
                             currentScope.set(new ImmutablePair<>(GeneratorScope.INTENT, DEFAULT_INTENT_NAME));
                         }
                         sourceMap.get(currentScope.get().left).putIfAbsent(currentScope.get().right, new ArrayList<>());
-                        sourceMap.get(currentScope.get().left).get(currentScope.get().right).add(line);
+                        sourceMap.get(currentScope.get().left).get(currentScope.get().right).add(line.getValue());
                     }
                 });
     }
@@ -359,6 +850,16 @@ public class Generator {
         private Path valuesFilePath;
         private boolean skipValidation = false;
         private boolean skipCleanup = false;
+        private int parallelism = 1;
+        private long maxUtterancesPerIntent = Long.MAX_VALUE;
+        private long maxUtterances = Long.MAX_VALUE;
+        private long maxBytes = Long.MAX_VALUE;
+        private boolean profiling = false;
+        private long sampleSize = Long.MAX_VALUE;
+        private long seed = 0;
+        private boolean pairwise = false;
+        private boolean symbolicValidation = false;
+        private Supplier<SampleStore> sampleStore = ListSampleStore::new;
 
         /**
          * New generator builder
@@ -431,13 +932,129 @@ public class Generator {
             return this;
         }
 
+        /**
+         * Sets the number of threads used to expand, clean up and validate sample utterances. Output is the same as with
+         * sequential processing.
+         * @param parallelism number of threads, 1 (default) for sequential processing
+         * @return generator builder
+         */
+        public GeneratorBuilder withParallelism(final int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Limits the number of sample utterances per intent. Generation fails before any sample utterance is generated
+         * if the grammar would exceed this limit. Duplicate sample utterances count as well.
+         * @param maxUtterancesPerIntent maximum number of sample utterances per intent
+         * @return generator builder
+         */
+        public GeneratorBuilder withMaxUtterancesPerIntent(final long maxUtterancesPerIntent) {
+            this.maxUtterancesPerIntent = maxUtterancesPerIntent;
+            return this;
+        }
+
+        /**
+         * Limits the total number of sample utterances. Generation fails before any sample utterance is generated
+         * if the grammar would exceed this limit. Duplicate sample utterances count as well.
+         * @param maxUtterances maximum number of sample utterances
+         * @return generator builder
+         */
+        public GeneratorBuilder withMaxUtterances(final long maxUtterances) {
+            this.maxUtterances = maxUtterances;
+            return this;
+        }
+
+        /**
+         * Limits the estimated size of sample utterances in the JSON output. Generation fails before any sample utterance
+         * is generated if the grammar would exceed this limit.
+         * @param maxBytes maximum size in bytes
+         * @return generator builder
+         */
+        public GeneratorBuilder withMaxBytes(final long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Enables measuring the number of sample utterances and generation time per grammar line and placeholder. Sample
+         * utterances are generated on one thread then.
+         * @param profiling true to enable profiling
+         * @return generator builder
+         */
+        public GeneratorBuilder enableProfiling(final boolean profiling) {
+            this.profiling = profiling;
+            return this;
+        }
+
+        /**
+         * Draws the given number of sample utterances per intent uniformly at random rather than generating all of them.
+         * Intents with fewer sample utterances keep all of them.
+         * @param sampleSize number of sample utterances per intent
+         * @return generator builder
+         */
+        public GeneratorBuilder withSampleSize(final long sampleSize) {
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        /**
+         * Seed for drawing sample utterances at random. Same seed results in the same sample utterances.
+         * @param seed seed for the random number generator
+         * @return generator builder
+         */
+        public GeneratorBuilder withSeed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Generates only a subset of the sample utterances of each grammar line in which every value of a placeholder
+         * occurs at least once and every pair of values of two placeholders occurs together at least once.
+         * @param pairwise true to generate pairwise coverage rather than all permutations
+         * @return generator builder
+         */
+        public GeneratorBuilder enablePairwise(final boolean pairwise) {
+            this.pairwise = pairwise;
+            return this;
+        }
+
+        /**
+         * Looks for sample utterances shared by two intents on the compiled grammar before generating any sample
+         * utterance rather than comparing generated sample utterances. Takes milliseconds even for grammars with
+         * billions of permutations. Overlaps are counted as distinct sample utterances.
+         * @param symbolicValidation true to validate overlaps symbolically
+         * @return generator builder
+         */
+        public GeneratorBuilder enableSymbolicValidation(final boolean symbolicValidation) {
+            this.symbolicValidation = symbolicValidation;
+            return this;
+        }
+
+        /**
+         * Sets how sample utterances of an intent are kept in memory. Defaults to a list. A TrieSampleStore shares
+         * common prefixes of sample utterances and keeps them sorted.
+         * @param sampleStore creates a new empty sample store per intent
+         * @return generator builder
+         */
+        public GeneratorBuilder withSampleStore(final Supplier<SampleStore> sampleStore) {
+            this.sampleStore = sampleStore;
+            return this;
+        }
+
         /**
          * builds the Generator object
          * @return generator object
          */
         public Generator build() {
             Validate.noNullElements(Collections.singletonList(formatter), "Generator needs a Formatter instance to process.");
+            Validate.notNull(sampleStore, "Generator needs a sample store to keep sample utterances.");
             Validate.isTrue(grammarFile == null || grammarFile.canRead(), "Could not obtain read access to grammar file.");
+            Validate.isTrue(parallelism > 0, "Parallelism needs to be at least 1.");
+            Validate.isTrue(sampleSize >= 0, "Sample size must not be negative.");
+            Validate.isTrue(!profiling || sampleSize == Long.MAX_VALUE, "Profiling is not supported when drawing sample utterances at random.");
+            Validate.isTrue(!pairwise || sampleSize == Long.MAX_VALUE, "Pairwise coverage cannot be combined with drawing sample utterances at random.");
+            Validate.isTrue(!symbolicValidation || (!pairwise && sampleSize == Long.MAX_VALUE), "Symbolic validation covers all permutations and cannot be combined with pairwise coverage or drawing sample utterances at random.");
             return new Generator(this);
         }
     }
@@ -0,0 +1,365 @@
+package io.klerch.alexa.utterances.processor;
+
+import io.klerch.alexa.utterances.util.Resolver;
+import io.klerch.alexa.utterances.util.Validator;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lexer for grammar specification without regular expressions. A line is stripped from comments and classified as an
+ * invocation name, intent or slot type definition in one pass over its characters, and an utterance is cut into
+ * literals, {{slots}} and {variants} in another. Results are the same as with the patterns in Resolver. The few lines
+ * the patterns treat in a way that depends on what was substituted before (e.g. a variant running into a slot) are
+ * reported as irregular, so the caller can leave them to the patterns.
+ */
+final class GrammarLexer {
+    private static final String INVOCATION = "invocation:";
+
+    private GrammarLexer() {
+    }
+
+    /**
+     * Reads lines from a reader one at a time. Lines are separated the same way Scanner does (\n, \r\n, \r, \u2028, \u2029 and
+     * \u0085) and the reader is closed once the last line was read.
+     * @param reader reader of grammar specification
+     * @return stream of lines
+     */
+    static Stream<String> lines(final Reader reader) {
+        final Iterator<String> lines = new Iterator<String>() {
+            private final char[] buffer = new char[8192];
+            private final StringBuilder line = new StringBuilder();
+            private int position;
+            private int limit;
+            private boolean endOfInput;
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !endOfInput) next = readLine();
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final String current = next;
+                next = null;
+                return current;
+            }
+
+            private String readLine() {
+                line.setLength(0);
+                while (fill()) {
+                    final char c = buffer[position++];
+                    if (isLineSeparator(c)) {
+                        // \r\n is one separator
+                        if (c == '\r' && fill() && buffer[position] == '\n') position++;
+                        return line.toString();
+                    }
+                    line.append(c);
+                }
+                // a trailing line without separator unless it is empty
+                return line.length() > 0 ? line.toString() : null;
+            }
+
+            private boolean fill() {
+                if (position < limit) return true;
+                if (endOfInput) return false;
+                try {
+                    do {
+                        limit = reader.read(buffer);
+                    } while (limit == 0);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        endOfInput = true;
+                        reader.close();
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return !endOfInput;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(lines, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Strips a grammar line from its comment and classifies it. Names of definitions are validated the same way the
+     * definition resolvers in Resolver validate them, including names of definitions only matched by a resolver with
+     * lower priority.
+     * @param rawLine line as it appears in the grammar
+     * @return classified line or null if the line is blank or a comment
+     */
+    static Line classify(final String rawLine) {
+        final String trimmed = rawLine.trim();
+        if (trimmed.startsWith("//")) return null;
+        final int comment = trimmed.indexOf("//");
+        final String line = comment < 0 ? trimmed : trimmed.substring(0, comment).trim();
+        if (StringUtils.isBlank(line)) return null;
+        if (containsLineSeparator(line)) return classifyWithPatterns(line);
+        final Line invocation = matchInvocation(line);
+        final Line intent = matchIntent(line);
+        final Line slotType = matchSlotType(line);
+        // Resolver validates in this order no matter which definition wins
+        if (invocation != null) Validator.validateInvocationName(invocation.key);
+        if (intent != null) Validator.validateIntentName(intent.key);
+        if (slotType != null) Validator.validateSlotName(slotType.key);
+        return invocation != null ? invocation : intent != null ? intent : slotType != null ? slotType : new Line(null, null, line);
+    }
+
+    /**
+     * Classifies a line with line separators inside, which lets the patterns match at the start of every inner line
+     */
+    private static Line classifyWithPatterns(final String line) {
+        final Optional<ImmutablePair<String, String>> invocation = Resolver.resolveInvocationDefinition(line);
+        final Optional<ImmutablePair<String, String>> intent = Resolver.resolveIntentDefinition(line);
+        final Optional<ImmutablePair<String, String>> slotType = Resolver.resolveSlotTypeDefinition(line);
+        if (invocation.isPresent()) return new Line(GeneratorScope.INVOCATION, invocation.get().left, invocation.get().right);
+        if (intent.isPresent()) return new Line(GeneratorScope.INTENT, intent.get().left, intent.get().right);
+        return slotType.map(s -> new Line(GeneratorScope.PLACEHOLDER, s.left, s.right)).orElse(new Line(null, null, line));
+    }
+
+    /**
+     * Same as Resolver.invocationDefintion: "invocation:" in ASCII letters of any case at the start of the line
+     */
+    private static Line matchInvocation(final String line) {
+        if (line.length() < INVOCATION.length()) return null;
+        for (int i = 0; i < INVOCATION.length(); i++) {
+            final char c = line.charAt(i);
+            final char lower = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            if (lower != INVOCATION.charAt(i)) return null;
+        }
+        return definition(GeneratorScope.INVOCATION, line, INVOCATION.length());
+    }
+
+    /**
+     * Same as Resolver.intentDefinition: everything up to the last colon before the first opening bracket, given there
+     * is at least one character in front of that colon
+     */
+    private static Line matchIntent(final String line) {
+        final int bracket = line.indexOf('{');
+        final int colon = line.lastIndexOf(':', (bracket < 0 ? line.length() : bracket) - 1);
+        return colon >= 1 ? definition(GeneratorScope.INTENT, line, colon + 1) : null;
+    }
+
+    /**
+     * Same as Resolver.slotTypeDefinition: an opening bracket at the start of the line up to the first "}:" with at least
+     * one character in between
+     */
+    private static Line matchSlotType(final String line) {
+        if (line.isEmpty() || line.charAt(0) != '{') return null;
+        final int end = line.indexOf("}:", 2);
+        return end >= 0 ? definition(GeneratorScope.PLACEHOLDER, line, end + 2) : null;
+    }
+
+    private static Line definition(final GeneratorScope scope, final String line, final int length) {
+        return new Line(scope, StringUtils.replaceChars(line.substring(0, length), ":{}", "").trim(), line.substring(length).trim());
+    }
+
+    /**
+     * Cuts an utterance into literals, slots and variants the same way Resolver.slotInUtteranceDefinition followed by
+     * Resolver.placeholderInUtteranceExcludingResolved and Resolver.resolvedPlaceholders do. Slots are those the
+     * slot pattern finds on the utterance. Variants are those the variant pattern finds once slots are substituted,
+     * which are the same as on the utterance as long as they don't run into a slot.
+     * @param utterance utterance
+     * @return tokens or null if the utterance is irregular, i.e. it contains line separators or "{!", or a variant runs
+     * into a slot
+     */
+    static List<Token> tokenize(final String utterance) {
+        if (containsLineSeparator(utterance)) return null;
+        final List<Token> tokens = new ArrayList<>();
+        final int length = utterance.length();
+        int literalStart = 0;
+        int slotStart = indexOfSlot(utterance, 0);
+        int slotEnd = slotStart < 0 ? -1 : endOfSlot(utterance, slotStart);
+        if (slotEnd < 0) slotStart = -1;
+        int i = 0;
+        while (i < length) {
+            if (i == slotStart) {
+                addLiteral(tokens, utterance, literalStart, i);
+                tokens.add(new Token(TokenType.SLOT, utterance.substring(slotStart, slotEnd)));
+                i = literalStart = slotEnd;
+                slotStart = indexOfSlot(utterance, i);
+                slotEnd = slotStart < 0 ? -1 : endOfSlot(utterance, slotStart);
+                if (slotEnd < 0) slotStart = -1;
+                continue;
+            }
+            if (utterance.charAt(i) == '{' && i + 1 < length) {
+                // "{!" is how substituted placeholders look like
+                if (utterance.charAt(i + 1) == '!') return null;
+                final int end = utterance.indexOf('}', i + 3);
+                // a variant reaching a slot would end within the slot once it is substituted
+                if (slotStart >= 0 && (end < 0 || slotStart < end)) return null;
+                if (end >= 0) {
+                    addLiteral(tokens, utterance, literalStart, i);
+                    tokens.add(new Token(TokenType.VARIANT, utterance.substring(i, end + 1)));
+                    i = literalStart = end + 1;
+                    continue;
+                }
+            }
+            i++;
+        }
+        addLiteral(tokens, utterance, literalStart, length);
+        return tokens;
+    }
+
+    private static int indexOfSlot(final String utterance, final int from) {
+        return utterance.indexOf("{{", from);
+    }
+
+    /**
+     * Returns the end of a slot starting at the given position or -1 if there is no closing "}}"
+     */
+    private static int endOfSlot(final String utterance, final int start) {
+        final int end = utterance.indexOf("}}", start + 3);
+        return end < 0 ? -1 : end + 2;
+    }
+
+    private static void addLiteral(final List<Token> tokens, final String utterance, final int start, final int end) {
+        if (end > start) tokens.add(new Token(TokenType.LITERAL, utterance.substring(start, end)));
+    }
+
+    /**
+     * Splits the content of a placeholder into its alternatives. Same as split("[|,;]", -1).
+     * @param content placeholder content
+     * @return alternatives including empty ones
+     */
+    static List<String> splitAlternatives(final String content) {
+        final List<String> alternatives = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            final char c = content.charAt(i);
+            if (c == '|' || c == ',' || c == ';') {
+                alternatives.add(content.substring(start, i));
+                start = i + 1;
+            }
+        }
+        alternatives.add(content.substring(start));
+        return alternatives;
+    }
+
+    /**
+     * Returns true if the content of a placeholder lists alternatives. Same as matches(".*[|,;].*").
+     * @param content placeholder content
+     * @return true if the content got a separator of alternatives
+     */
+    static boolean isAlternative(final String content) {
+        return StringUtils.containsAny(content, '|', ',', ';') && !containsLineSeparator(content);
+    }
+
+    /**
+     * Returns true if a string contains a character the patterns treat as a line separator
+     */
+    private static boolean containsLineSeparator(final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isLineSeparator(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    private static boolean isLineSeparator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+    }
+
+    /**
+     * Grammar line classified as definition of an invocation name, intent or slot type or as a continuation of the
+     * definition before
+     */
+    static final class Line {
+        private final GeneratorScope scope;
+        private final String key;
+        private final String value;
+
+        private Line(final GeneratorScope scope, final String key, final String value) {
+            this.scope = scope;
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * Returns the scope of the definition
+         * @return scope or null if the line continues the definition before
+         */
+        GeneratorScope getScope() {
+            return scope;
+        }
+
+        /**
+         * Returns the name of what is defined (e.g. intent name)
+         * @return name or null if the line continues the definition before
+         */
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * Returns what follows the definition or the whole line if it continues the definition before
+         * @return value
+         */
+        String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Type of a token of an utterance
+     */
+    enum TokenType {
+        LITERAL,
+        /**
+         * Slot placeholder (e.g. {{slot:type}})
+         */
+        SLOT,
+        /**
+         * Variant placeholder (e.g. {text1|text2} or {placeholder})
+         */
+        VARIANT
+    }
+
+    /**
+     * Token of an utterance
+     */
+    static final class Token {
+        private final TokenType type;
+        private final String text;
+
+        private Token(final TokenType type, final String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        TokenType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the token as it appears in the utterance
+         * @return text of the token
+         */
+        String getText() {
+            return text;
+        }
+
+        /**
+         * Returns the text of a placeholder without its brackets
+         * @return placeholder content
+         */
+        String getContent() {
+            return StringUtils.replaceChars(text, "{}", "");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.klerch.alexa.utterances.processor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns strings and hands out dense int ids in the order strings are seen for the first time. Equal strings get the
+ * same id and share one instance.
+ */
+final class SymbolTable {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] symbols = new String[16];
+    private int size;
+
+    /**
+     * Returns the id of a string and interns it if it was not seen before
+     * @param symbol string
+     * @return id between 0 and size() - 1
+     */
+    int intern(final String symbol) {
+        final Integer id = ids.get(symbol);
+        if (id != null) return id;
+        if (size == symbols.length) symbols = Arrays.copyOf(symbols, size * 2);
+        symbols[size] = symbol;
+        ids.put(symbol, size);
+        return size++;
+    }
+
+    /**
+     * Returns the string of an id
+     * @param id id returned by intern
+     * @return string
+     */
+    String get(final int id) {
+        return symbols[id];
+    }
+
+    /**
+     * Returns the number of distinct strings interned
+     * @return number of symbols
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,348 @@
+package io.klerch.alexa.utterances.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Nondeterministic automaton accepting exactly the sample utterances the templates of an intent expand to. Each
+ * character of a literal or placeholder value is a position in the automaton, so its size grows with the length of the
+ * grammar rather than with the number of permutations. Trimming and collapsing of whitespace is part of the automaton,
+ * thus two automata can be intersected to find sample utterances shared by two intents without expanding any of them.
+ */
+final class UtteranceAutomaton {
+    /**
+     * Position past the last character of an utterance
+     */
+    private static final int END = 0;
+    /**
+     * Whitespace state of a position: something was written and it does not end with a blank
+     */
+    private static final int WORD = 0;
+    /**
+     * Whitespace state of a position: something was written and it ends with a blank
+     */
+    private static final int BLANK = 1;
+    /**
+     * Whitespace state of a position: nothing was written yet
+     */
+    private static final int EMPTY = 2;
+    private static final int STATES = 3;
+    private static final byte UNKNOWN = 0;
+    private static final byte NO = 1;
+    private static final byte YES = 2;
+
+    /**
+     * Character at each position
+     */
+    private final char[] characters;
+    /**
+     * Positions following each position
+     */
+    private final int[][] follow;
+    /**
+     * Closed set of states before reading the first character
+     */
+    private final int[] start;
+    /**
+     * Whether the utterance can end from a state without writing anything but whitespace or control characters
+     */
+    private final byte[] trailing;
+
+    /**
+     * Compiles the templates of an intent
+     * @param templates utterance templates
+     */
+    UtteranceAutomaton(final List<UtteranceTemplate> templates) {
+        final StringBuilder chars = new StringBuilder().append('\0');
+        final List<int[]> follows = new ArrayList<>();
+        follows.add(new int[0]);
+        final Set<Integer> entries = new HashSet<>();
+        for (final UtteranceTemplate template : templates) {
+            if (template.size() == 0) continue;
+            final int[] literals = template.getLiterals();
+            final int[][] values = template.getValues();
+            // segments alternate between literals and placeholder values and are compiled back to front
+            int[] next = new int[] { END };
+            for (int i = literals.length - 1; i >= 0; i--) {
+                next = compile(template, new int[] { literals[i] }, next, chars, follows);
+                if (i > 0) next = compile(template, values[i - 1], next, chars, follows);
+            }
+            for (final int position : next) entries.add(position);
+        }
+        this.characters = chars.toString().toCharArray();
+        this.follow = follows.toArray(new int[0][]);
+        this.trailing = new byte[characters.length * STATES];
+        this.start = close(entries.stream().mapToInt(position -> state(position, EMPTY)).toArray());
+    }
+
+    /**
+     * Adds positions for each alternative of a segment
+     * @param template template the segment belongs to
+     * @param alternatives symbol ids of a literal or of the placeholder values
+     * @param next positions following the segment
+     * @return positions entering the segment
+     */
+    private static int[] compile(final UtteranceTemplate template, final int[] alternatives, final int[] next, final StringBuilder chars, final List<int[]> follows) {
+        final Set<Integer> entries = new HashSet<>();
+        for (final int symbol : alternatives) {
+            final String alternative = template.getSymbol(symbol);
+            if (alternative.isEmpty()) {
+                // empty alternative passes right through to the next segment
+                for (final int position : next) entries.add(position);
+                continue;
+            }
+            entries.add(chars.length());
+            for (int i = 0; i < alternative.length(); i++) {
+                follows.add(i < alternative.length() - 1 ? new int[] { chars.length() + 1 } : next);
+                chars.append(alternative.charAt(i));
+            }
+        }
+        return entries.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private static int state(final int position, final int whitespace) {
+        return position * STATES + whitespace;
+    }
+
+    /**
+     * Returns the character written when reading the character at the state's position, following the rules of
+     * UtteranceTemplate: whitespace collapses to one blank, leading whitespace and control characters are dropped.
+     * @param state state
+     * @return written character or -1 if nothing is written
+     */
+    private int written(final int state) {
+        final char c = characters[state / STATES];
+        final int whitespace = state % STATES;
+        if (isWhitespace(c)) return whitespace == WORD ? ' ' : -1;
+        return whitespace != EMPTY || c > ' ' ? c : -1;
+    }
+
+    /**
+     * Returns the whitespace state after reading the character at the state's position
+     */
+    private int whitespaceAfter(final int state) {
+        final int written = written(state);
+        if (written < 0) return state % STATES;
+        return written == ' ' ? BLANK : WORD;
+    }
+
+    /**
+     * Adds all states reachable without writing a character
+     * @param states states
+     * @return sorted closed set of states
+     */
+    private int[] close(final int[] states) {
+        final Set<Integer> closed = new HashSet<>();
+        final List<Integer> pending = new ArrayList<>();
+        for (final int state : states) {
+            if (closed.add(state)) pending.add(state);
+        }
+        while (!pending.isEmpty()) {
+            final int state = pending.remove(pending.size() - 1);
+            if (state / STATES == END || written(state) >= 0) continue;
+            for (final int position : follow[state / STATES]) {
+                final int next = state(position, whitespaceAfter(state));
+                if (closed.add(next)) pending.add(next);
+            }
+        }
+        return closed.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * Groups the successors of a closed set of states by the character written on the way
+     * @param states closed set of states
+     * @return successor states by written character, ordered by character
+     */
+    private TreeMap<Character, int[]> moves(final int[] states) {
+        final TreeMap<Character, List<Integer>> successors = new TreeMap<>();
+        for (final int state : states) {
+            if (state / STATES == END) continue;
+            final int written = written(state);
+            if (written < 0) continue;
+            final List<Integer> list = successors.computeIfAbsent((char) written, c -> new ArrayList<>());
+            for (final int position : follow[state / STATES]) {
+                list.add(state(position, whitespaceAfter(state)));
+            }
+        }
+        final TreeMap<Character, int[]> moves = new TreeMap<>();
+        successors.forEach((c, list) -> moves.put(c, close(list.stream().mapToInt(Integer::intValue).toArray())));
+        return moves;
+    }
+
+    /**
+     * Returns true if any of the states can reach the end of an utterance writing nothing but characters which get trimmed
+     * @param states closed set of states
+     */
+    private boolean canEnd(final int[] states) {
+        for (final int state : states) {
+            if (canEnd(state)) return true;
+        }
+        return false;
+    }
+
+    private boolean canEnd(final int state) {
+        if (state / STATES == END) return true;
+        if (trailing[state] == UNKNOWN) {
+            final int written = written(state);
+            boolean result = false;
+            if (written <= ' ') {
+                for (final int position : follow[state / STATES]) {
+                    if (canEnd(state(position, whitespaceAfter(state)))) {
+                        result = true;
+                        break;
+                    }
+                }
+            }
+            trailing[state] = result ? YES : NO;
+        }
+        return trailing[state] == YES;
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Returns the sample utterances accepted by both automata
+     * @param other automaton of another intent
+     * @return intersection of sample utterances
+     */
+    Intersection intersect(final UtteranceAutomaton other) {
+        return new Intersection(this, other);
+    }
+
+    /**
+     * Sample utterances accepted by two automata. The intersection is explored lazily as a deterministic automaton whose
+     * states are pairs of state sets of both automata.
+     */
+    static final class Intersection {
+        private final UtteranceAutomaton left;
+        private final UtteranceAutomaton right;
+        private final State start;
+        private final Map<State, Long> counts = new HashMap<>();
+        private final Set<State> dead = new HashSet<>();
+
+        private Intersection(final UtteranceAutomaton left, final UtteranceAutomaton right) {
+            this.left = left;
+            this.right = right;
+            this.start = new State(left.start, right.start, true);
+        }
+
+        /**
+         * Returns true if there is no sample utterance accepted by both automata
+         * @return true if intersection is empty
+         */
+        boolean isEmpty() {
+            return !exists(start);
+        }
+
+        /**
+         * Returns the number of distinct sample utterances accepted by both automata
+         * @return number of sample utterances or Long.MAX_VALUE if it exceeds the range of long
+         */
+        long count() {
+            return count(start);
+        }
+
+        /**
+         * Returns the alphabetically first sample utterance accepted by both automata
+         * @return sample utterance or null if intersection is empty
+         */
+        String first() {
+            if (count(start) == 0) return null;
+            final StringBuilder utterance = new StringBuilder();
+            State state = start;
+            while (!accepts(state)) {
+                for (final Map.Entry<Character, State> successor : successors(state).entrySet()) {
+                    if (count(successor.getValue()) > 0) {
+                        utterance.append(successor.getKey());
+                        state = successor.getValue();
+                        break;
+                    }
+                }
+            }
+            return utterance.toString();
+        }
+
+        /**
+         * An utterance ends right after a character which does not get trimmed and only if both automata can end there
+         */
+        private boolean accepts(final State state) {
+            return state.untrimmed && left.canEnd(state.left) && right.canEnd(state.right);
+        }
+
+        private TreeMap<Character, State> successors(final State state) {
+            final TreeMap<Character, int[]> leftMoves = left.moves(state.left);
+            final TreeMap<Character, int[]> rightMoves = right.moves(state.right);
+            final TreeMap<Character, State> successors = new TreeMap<>();
+            leftMoves.forEach((c, leftStates) -> {
+                final int[] rightStates = rightMoves.get(c);
+                if (rightStates != null) successors.put(c, new State(leftStates, rightStates, c > ' '));
+            });
+            return successors;
+        }
+
+        private boolean exists(final State state) {
+            if (counts.containsKey(state)) return counts.get(state) > 0;
+            if (dead.contains(state)) return false;
+            if (accepts(state)) return true;
+            for (final State successor : successors(state).values()) {
+                if (exists(successor)) return true;
+            }
+            dead.add(state);
+            return false;
+        }
+
+        private long count(final State state) {
+            final Long known = counts.get(state);
+            if (known != null) return known;
+            long count = accepts(state) ? 1 : 0;
+            if (!dead.contains(state)) {
+                for (final State successor : successors(state).values()) {
+                    final long sum = count + count(successor);
+                    count = sum < 0 ? Long.MAX_VALUE : sum;
+                }
+            }
+            counts.put(state, count);
+            return count;
+        }
+    }
+
+    /**
+     * State of the intersection: state sets of both automata after reading the same characters
+     */
+    private static final class State {
+        private final int[] left;
+        private final int[] right;
+        /**
+         * Nothing was written yet or the last written character is not trimmed at the end
+         */
+        private final boolean untrimmed;
+        private final int hash;
+
+        private State(final int[] left, final int[] right, final boolean untrimmed) {
+            this.left = left;
+            this.right = right;
+            this.untrimmed = untrimmed;
+            this.hash = (Arrays.hashCode(left) * 31 + Arrays.hashCode(right)) * 2 + (untrimmed ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof State)) return false;
+            final State state = (State) o;
+            return untrimmed == state.untrimmed && Arrays.equals(left, state.left) && Arrays.equals(right, state.right);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.klerch.alexa.utterances.processor;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Random access to the sample utterances of a list of utterance templates. The permutations of all templates are
+ * addressed by one continuous index range in the same order they are expanded. Looking up a sample utterance decodes
+ * its index to one value per placeholder and does not generate any other permutation.
+ */
+final class UtteranceIndex {
+    private final List<UtteranceTemplate> templates;
+    /**
+     * Index of the first permutation of each template in the continuous index range. Last element holds the total.
+     */
+    private final long[] offsets;
+
+    /**
+     * New index covering all permutations of the given templates
+     * @param templates utterance templates
+     */
+    UtteranceIndex(final List<UtteranceTemplate> templates) {
+        this.templates = templates;
+        this.offsets = new long[templates.size() + 1];
+        for (int i = 0; i < templates.size(); i++) {
+            offsets[i + 1] = offsets[i] + templates.get(i).size();
+            Validate.isTrue(offsets[i + 1] >= offsets[i] && offsets[i + 1] < Long.MAX_VALUE, "Too many sample utterances to enumerate.");
+        }
+    }
+
+    /**
+     * Returns the number of permutations of all templates
+     * @return number of permutations
+     */
+    long size() {
+        return offsets[templates.size()];
+    }
+
+    /**
+     * Returns the permutation with the given index
+     * @param index index of permutation
+     * @return sample utterance
+     */
+    String get(final long index) {
+        Validate.isTrue(index >= 0 && index < size(), "Index " + index + " is out of range. There are " + size() + " sample utterances.");
+        // find the last template starting at or before the index
+        int templateIndex = Arrays.binarySearch(offsets, index);
+        if (templateIndex < 0) {
+            templateIndex = -templateIndex - 2;
+        }
+        // skip templates without permutations sharing the same offset
+        while (offsets[templateIndex + 1] <= index) templateIndex++;
+        return templates.get(templateIndex).cursor(index - offsets[templateIndex]).current();
+    }
+
+    /**
+     * Draws permutations uniformly at random without replacement. Returns all permutations if there are not more
+     * than requested.
+     * @param numberOfSamples number of permutations to draw
+     * @param random source of randomness
+     * @return sample utterances in the order of their index
+     */
+    List<String> sample(final long numberOfSamples, final SplittableRandom random) {
+        Validate.isTrue(numberOfSamples >= 0, "Number of samples must not be negative.");
+        final List<String> samples = new ArrayList<>();
+        if (numberOfSamples >= size()) {
+            templates.forEach(template -> template.forEach(samples::add));
+            return samples;
+        }
+        // Floyd's algorithm picks distinct indices with one random number each
+        final Set<Long> indices = new HashSet<>();
+        for (long upper = size() - numberOfSamples; upper < size(); upper++) {
+            final long index = random.nextLong(upper + 1);
+            indices.add(indices.contains(index) ? upper : index);
+        }
+        indices.stream().sorted().forEach(index -> samples.add(get(index)));
+        return samples;
+    }
+}
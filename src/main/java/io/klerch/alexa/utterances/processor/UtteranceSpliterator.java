@@ -0,0 +1,117 @@
+package io.klerch.alexa.utterances.processor;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator enumerating the sample utterances of a list of utterance templates on demand. The permutations of all
+ * templates are addressed by one continuous index range which is split in halves for parallel processing.
+ */
+final class UtteranceSpliterator implements Spliterator<String> {
+    /**
+     * Ranges smaller than this are not split any further
+     */
+    private static final long MIN_SPLIT_SIZE = 1024;
+    private final List<UtteranceTemplate> templates;
+    /**
+     * Index of the first permutation of each template in the continuous index range. Last element holds the total.
+     */
+    private final long[] offsets;
+    private long index;
+    private final long fence;
+    private int templateIndex;
+    private UtteranceTemplate.Cursor cursor;
+
+    /**
+     * New spliterator covering all permutations of the given templates
+     * @param templates utterance templates
+     */
+    UtteranceSpliterator(final List<UtteranceTemplate> templates) {
+        this.templates = templates;
+        this.offsets = new long[templates.size() + 1];
+        for (int i = 0; i < templates.size(); i++) {
+            offsets[i + 1] = offsets[i] + templates.get(i).size();
+            Validate.isTrue(offsets[i + 1] >= offsets[i] && offsets[i + 1] < Long.MAX_VALUE, "Too many sample utterances to enumerate.");
+        }
+        this.index = 0;
+        this.fence = offsets[templates.size()];
+    }
+
+    private UtteranceSpliterator(final List<UtteranceTemplate> templates, final long[] offsets, final long index, final long fence) {
+        this.templates = templates;
+        this.offsets = offsets;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * Returns a spliterator over a part of the permutations covered by this spliterator
+     * @param from index of the first permutation
+     * @param to index after the last permutation
+     * @return spliterator covering the given index range
+     */
+    UtteranceSpliterator slice(final long from, final long to) {
+        Validate.isTrue(index <= from && from <= to && to <= fence, "Range of permutations is out of bounds.");
+        return new UtteranceSpliterator(templates, offsets, from, to);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super String> action) {
+        if (index >= fence) return false;
+        if (cursor == null) {
+            locate();
+            cursor = templates.get(templateIndex).cursor(index - offsets[templateIndex]);
+        }
+        action.accept(cursor.current());
+        if (++index < fence && !cursor.advance()) {
+            // continue with next template
+            cursor = null;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super String> action) {
+        if (index >= fence) return;
+        locate();
+        while (index < fence) {
+            final long to = Math.min(fence, offsets[templateIndex + 1]);
+            templates.get(templateIndex).forEach(index - offsets[templateIndex], to - offsets[templateIndex], action::accept);
+            index = to;
+            templateIndex++;
+        }
+        cursor = null;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        final long remaining = fence - index;
+        if (remaining < MIN_SPLIT_SIZE * 2) return null;
+        final long middle = index + remaining / 2;
+        final UtteranceSpliterator prefix = new UtteranceSpliterator(templates, offsets, index, middle);
+        index = middle;
+        cursor = null;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Finds the template which holds the permutation at the current index
+     */
+    private void locate() {
+        if (offsets[templateIndex] > index) templateIndex = 0;
+        while (offsets[templateIndex + 1] <= index) templateIndex++;
+    }
+}
@@ -0,0 +1,343 @@
+package io.klerch.alexa.utterances.processor;
+
+import io.klerch.alexa.utterances.util.Resolver;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+
+/**
+ * A sample utterance compiled to the symbol ids of its literal segments and the value tables of its placeholders.
+ * Segments are resolved to their strings in the symbol table only when they are written. Expanding the template
+ * yields all permutations in the same order and format as a recursive substitution of one placeholder after another
+ * would produce.
+ */
+final class UtteranceTemplate {
+    /**
+     * Sample utterance as written in the grammar
+     */
+    private final String source;
+    /**
+     * Symbol table of the grammar the template was compiled with
+     */
+    private final SymbolTable symbols;
+    /**
+     * Symbol ids of the literal text around the placeholders. There is always one more literal than there are
+     * placeholders.
+     */
+    private final int[] literals;
+    /**
+     * Table ids of the placeholders in the order they appear in the utterance
+     */
+    private final int[] tables;
+    /**
+     * Symbol ids of the values of each placeholder in the order the placeholders appear in the utterance
+     */
+    private final int[][] placeholders;
+    /**
+     * Permutations covering all pairs of values, computed on first use
+     */
+    private List<int[]> pairwise;
+
+    private UtteranceTemplate(final String source, final SymbolTable symbols, final int[] literals, final int[] tables, final int[][] placeholders) {
+        this.source = source;
+        this.symbols = symbols;
+        this.literals = literals;
+        this.tables = tables;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Compiles an utterance whose placeholders were already substituted with a reference to their table (e.g. {!#12})
+     * @param source utterance as written in the grammar
+     * @param resolvedUtterance utterance with resolved placeholders
+     * @param substituted table ids by the reference their placeholder was substituted with (e.g. #12)
+     * @param grammar compiled grammar holding the tables
+     * @return compiled utterance template
+     */
+    static UtteranceTemplate compile(final String source, final String resolvedUtterance, final Map<String, Integer> substituted, final CompiledGrammar grammar) {
+        final List<String> literals = new ArrayList<>();
+        final List<Integer> tables = new ArrayList<>();
+        final Matcher resolvedPlaceholders = Resolver.resolvedPlaceholders.matcher(resolvedUtterance);
+        int position = 0;
+        while (resolvedPlaceholders.find()) {
+            literals.add(resolvedUtterance.substring(position, resolvedPlaceholders.start()));
+            // extract reference from the placeholder to look up the corresponding table
+            final Integer table = substituted.get(resolvedPlaceholders.group(2));
+            Validate.notNull(table, "Placeholder " + resolvedPlaceholders.group(1) + " in utterance " + source + " could not be resolved.");
+            tables.add(table);
+            position = resolvedPlaceholders.end();
+        }
+        literals.add(resolvedUtterance.substring(position));
+        return compile(source, literals, tables.stream().mapToInt(Integer::intValue).toArray(), grammar);
+    }
+
+    /**
+     * Compiles an utterance already cut into literals and the tables of the placeholders in between
+     * @param source utterance as written in the grammar
+     * @param literals literal text around the placeholders, one more than there are placeholders
+     * @param tables table ids of the placeholders in the order they appear in the utterance
+     * @param grammar compiled grammar holding the tables
+     * @return compiled utterance template
+     */
+    static UtteranceTemplate compile(final String source, final List<String> literals, final int[] tables, final CompiledGrammar grammar) {
+        final int[] interned = new int[literals.size()];
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = grammar.intern(literals.get(i));
+        }
+        final int[][] placeholders = new int[tables.length][];
+        for (int i = 0; i < tables.length; i++) {
+            placeholders[i] = grammar.getValues(tables[i]);
+        }
+        return new UtteranceTemplate(source, grammar.getSymbols(), interned, tables, placeholders);
+    }
+
+    /**
+     * Returns the sample utterance as written in the grammar
+     * @return sample utterance as written in the grammar
+     */
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the table ids of the placeholders in the order they appear in the utterance. Must not be modified.
+     * @return table ids
+     */
+    int[] getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns the symbol ids of the literal text around the placeholders. Must not be modified.
+     * @return symbol ids of the literals, one more than there are placeholders
+     */
+    int[] getLiterals() {
+        return literals;
+    }
+
+    /**
+     * Returns the symbol ids of the values of each placeholder in the order the placeholders appear in the utterance.
+     * Must not be modified.
+     * @return symbol ids of the values per placeholder
+     */
+    int[][] getValues() {
+        return placeholders;
+    }
+
+    /**
+     * Returns the literal or value behind a symbol id
+     * @param symbol symbol id of a literal or value of this template
+     * @return literal or value
+     */
+    String getSymbol(final int symbol) {
+        return symbols.get(symbol);
+    }
+
+    /**
+     * Returns the number of permutations this template expands to
+     * @return number of permutations or Long.MAX_VALUE if it exceeds the range of long
+     */
+    long size() {
+        long size = 1;
+        for (final int[] values : placeholders) {
+            if (values.length == 0) return 0;
+            size = size > Long.MAX_VALUE / values.length ? Long.MAX_VALUE : size * values.length;
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the number of UTF-8 encoded bytes of all permutations without expanding them. Whitespace collapsing
+     * on expansion is not taken into account.
+     * @return estimated number of bytes or Long.MAX_VALUE if it exceeds the range of long
+     */
+    long estimateBytes() {
+        final double size = size();
+        // each literal is part of every permutation
+        double bytes = 0;
+        for (final int literal : literals) {
+            bytes += size * utf8Length(symbols.get(literal));
+        }
+        // each value of a placeholder is part of every n-th permutation
+        for (final int[] values : placeholders) {
+            for (final int value : values) {
+                bytes += size / values.length * utf8Length(symbols.get(value));
+            }
+        }
+        return (long) bytes;
+    }
+
+    /**
+     * Returns the value indices of a subset of permutations in which every pair of values of two different
+     * placeholders occurs at least once
+     * @return value indices per permutation, one per placeholder
+     */
+    synchronized List<int[]> pairwise() {
+        if (pairwise == null) {
+            pairwise = CoveringArray.pairwise(Arrays.stream(placeholders).mapToInt(values -> values.length).toArray());
+        }
+        return pairwise;
+    }
+
+    /**
+     * Generates the permutations in which every pair of values of two different placeholders occurs at least once
+     * and hands them over to the consumer
+     * @param consumer receives each permutation
+     */
+    void forEachPairwise(final Consumer<String> consumer) {
+        final StringBuilder buffer = new StringBuilder();
+        for (final int[] indices : pairwise()) {
+            buffer.setLength(0);
+            append(buffer, symbols.get(literals[0]));
+            for (int i = 0; i < placeholders.length; i++) {
+                append(buffer, symbols.get(placeholders[i][indices[i]]));
+                append(buffer, symbols.get(literals[i + 1]));
+            }
+            consumer.accept(trimmed(buffer));
+        }
+    }
+
+    /**
+     * Generates all permutations of this template and hands them over to the consumer. Whitespace is trimmed and
+     * collapsed to single blanks.
+     * @param consumer receives each permutation
+     */
+    void forEach(final Consumer<String> consumer) {
+        forEach(0, size(), consumer);
+    }
+
+    /**
+     * Generates the permutations within the given index range and hands them over to the consumer
+     * @param from index of first permutation (inclusive)
+     * @param to index of last permutation (exclusive)
+     * @param consumer receives each permutation
+     */
+    void forEach(final long from, final long to, final Consumer<String> consumer) {
+        if (from >= to) return;
+        final Cursor cursor = new Cursor(from);
+        for (long index = from; ; cursor.advance()) {
+            consumer.accept(cursor.current());
+            if (++index == to) return;
+        }
+    }
+
+    /**
+     * Returns a cursor positioned at the permutation with the given index
+     * @param index index of permutation, must be lower than size()
+     * @return cursor
+     */
+    Cursor cursor(final long index) {
+        return new Cursor(index);
+    }
+
+    /**
+     * Walks through the permutations of the template like an odometer where the last placeholder moves fastest.
+     * Only the part of the buffer following the changed placeholder gets rewritten on each step.
+     */
+    final class Cursor {
+        private final int[] indices = new int[placeholders.length];
+        // buffer length at the point right before a placeholder value gets appended
+        private final int[] marks = new int[placeholders.length];
+        private final StringBuilder buffer = new StringBuilder();
+
+        private Cursor(long index) {
+            // decode mixed radix index, last placeholder is the least significant digit
+            for (int i = placeholders.length - 1; i >= 0; i--) {
+                indices[i] = (int) (index % placeholders[i].length);
+                index /= placeholders[i].length;
+            }
+            append(buffer, symbols.get(literals[0]));
+            appendFrom(0);
+        }
+
+        /**
+         * Returns the permutation the cursor is positioned at
+         * @return sample utterance
+         */
+        String current() {
+            return trimmed(buffer);
+        }
+
+        /**
+         * Moves the cursor to the next permutation
+         * @return false if there is no next permutation
+         */
+        boolean advance() {
+            int position = placeholders.length - 1;
+            while (position >= 0 && ++indices[position] == placeholders[position].length) {
+                indices[position--] = 0;
+            }
+            if (position < 0) return false;
+            // keep the prefix which did not change and rewrite the rest
+            buffer.setLength(marks[position]);
+            appendFrom(position);
+            return true;
+        }
+
+        private void appendFrom(final int position) {
+            for (int i = position; i < placeholders.length; i++) {
+                marks[i] = buffer.length();
+                append(buffer, symbols.get(placeholders[i][indices[i]]));
+                append(buffer, symbols.get(literals[i + 1]));
+            }
+        }
+    }
+
+    /**
+     * Appends text to the buffer while skipping leading whitespace and collapsing whitespace to single blanks
+     * @param buffer buffer holding the utterance
+     * @param text text to append
+     */
+    private static void append(final StringBuilder buffer, final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (isWhitespace(c)) {
+                if (buffer.length() > 0 && buffer.charAt(buffer.length() - 1) != ' ') buffer.append(' ');
+            } else if (buffer.length() > 0 || c > ' ') {
+                buffer.append(c);
+            }
+        }
+    }
+
+    /**
+     * Returns the buffer without trailing whitespace (same as String.trim() does)
+     * @param buffer buffer holding the utterance
+     * @return utterance
+     */
+    private static String trimmed(final StringBuilder buffer) {
+        int length = buffer.length();
+        while (length > 0 && buffer.charAt(length - 1) <= ' ') length--;
+        return buffer.substring(0, length);
+    }
+
+    private static int utf8Length(final String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // surrogate pair encodes to four bytes
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Same set of characters as \s in a regular expression
+     */
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
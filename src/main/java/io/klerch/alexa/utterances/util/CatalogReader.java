@@ -0,0 +1,262 @@
+package io.klerch.alexa.utterances.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads values files (catalogs) without regular expressions. The file is mapped into memory and decoded chunk by
+ * chunk, while lines, comments, values, ids and synonyms are cut out in one pass over the characters. Results are the
+ * same as ResourceReader.getLines followed by Resolver.resolveSlotValues.
+ */
+class CatalogReader {
+    /**
+     * Number of values in a line up to which duplicates are found by comparing with all values before
+     */
+    private static final int LINEAR_DISTINCT_LIMIT = 8;
+    /**
+     * Number of characters decoded at once
+     */
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Reads lines of a file without comments and blank lines
+     * @param file file to read
+     * @return lines or empty if the file is not decodable in the default charset or contains what only the Scanner-based
+     * reader handles (e.g. a line of just //)
+     */
+    static Optional<List<String>> readLines(final Path file) {
+        final List<String> lines = new ArrayList<>();
+        return read(file, (chars, start, end) -> lines.add(new String(chars, start, end - start))) ? Optional.of(lines) : Optional.empty();
+    }
+
+    /**
+     * Reads values of a values file in the format of key:value
+     * @param file values file to read
+     * @return values or empty if the file is not decodable in the default charset or contains what only the
+     * Scanner-based reader handles (e.g. a line of just //)
+     */
+    static Optional<List<String>> readValues(final Path file) {
+        final List<String> values = new ArrayList<>();
+        return read(file, (chars, start, end) -> resolve(chars, start, end, values)) ? Optional.of(values) : Optional.empty();
+    }
+
+    /**
+     * Passes each line without comment to the consumer unless it is blank. The file is decoded in chunks, so there is
+     * never more than a chunk of characters in memory.
+     * @return false if the file cannot be read the same way the Scanner-based reader does
+     */
+    private static boolean read(final Path file, final LineConsumer consumer) {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) return false;
+            final ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // Scanner reads in the default charset and silently stops at malformed input, so leave that to Scanner
+            final CharsetDecoder decoder = Charset.defaultCharset().newDecoder();
+            CharBuffer out = CharBuffer.allocate(CHUNK_SIZE);
+            while (true) {
+                final CoderResult result = decoder.decode(in, out, true);
+                if (result.isError()) return false;
+                final boolean endOfInput = result.isUnderflow();
+                if (endOfInput && decoder.flush(out).isOverflow()) return false;
+                out.flip();
+                final int consumed = read(out.array(), out.limit(), endOfInput, consumer);
+                if (consumed < 0) return false;
+                if (endOfInput) return true;
+                out.position(consumed);
+                out.compact();
+                if (!out.hasRemaining()) {
+                    // line longer than a chunk
+                    out.flip();
+                    out = CharBuffer.allocate(out.capacity() * 2).put(out);
+                }
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Passes complete lines of a chunk to the consumer
+     * @return position of the first character not passed on or -1 if the file cannot be read the same way the
+     * Scanner-based reader does
+     */
+    private static int read(final char[] chars, final int length, final boolean endOfInput, final LineConsumer consumer) {
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            // same line separators as Scanner
+            while (end < length && !isLineSeparator(chars[end])) end++;
+            // wait for the next chunk unless the line and its separator are complete
+            if (!endOfInput && (end == length || (chars[end] == '\r' && end + 1 == length))) break;
+            final int comment = indexOfComment(chars, start, end);
+            // String.split("//")[0] fails for a line of nothing but slashes in pairs
+            if (comment == start && onlyCommentMarkers(chars, start, end)) return -1;
+            final int lineEnd = comment >= 0 ? comment : end;
+            if (!isBlank(chars, start, lineEnd)) consumer.accept(chars, start, lineEnd);
+            start = end + (end + 1 < length && chars[end] == '\r' && chars[end + 1] == '\n' ? 2 : 1);
+        }
+        return Math.min(start, length);
+    }
+
+    /**
+     * Resolves a line of values the same way Resolver.resolveSlotValues does: brackets are dropped, values are
+     * separated by | , or ; and duplicates within the line are skipped. A value without id gets the id of the value
+     * before or itself as id. Works on slices of the line, so only resolved values become strings.
+     * @param chars characters of the line
+     * @param start position of first character
+     * @param end position after last character
+     * @param values list to add values in the format of key:value to
+     */
+    static void resolve(final char[] chars, final int start, final int end, final List<String> values) {
+        final char[] line;
+        int length = 0;
+        if (indexOfBracket(chars, start, end) < 0) {
+            line = chars;
+            length = end;
+        } else {
+            line = new char[end - start];
+            for (int i = start; i < end; i++) {
+                if (chars[i] != '{' && chars[i] != '}') line[length++] = chars[i];
+            }
+        }
+        final int first = line == chars ? start : 0;
+        // values of the line seen so far, as slices or as strings once there are many
+        int[] seen = null;
+        int seenCount = 0;
+        Set<String> seenSet = null;
+        // id of the value before as slice of keyChars
+        char[] keyChars = null;
+        int keyFrom = 0;
+        int keyTo = 0;
+        char[] buffer = null;
+        int from = first;
+        for (int i = first; i <= length; i++) {
+            if (i < length && line[i] != '|' && line[i] != ',' && line[i] != ';') continue;
+            final int valueFrom = from;
+            final int valueTo = i;
+            from = i + 1;
+            // skip duplicates within the line
+            if (seenSet != null) {
+                if (!seenSet.add(new String(line, valueFrom, valueTo - valueFrom))) continue;
+            } else if (isSeen(line, seen, seenCount, valueFrom, valueTo)) {
+                continue;
+            } else if (seenCount == LINEAR_DISTINCT_LIMIT) {
+                seenSet = new HashSet<>();
+                for (int j = 0; j < seenCount; j++) seenSet.add(new String(line, seen[j * 2], seen[j * 2 + 1] - seen[j * 2]));
+                seenSet.add(new String(line, valueFrom, valueTo - valueFrom));
+            } else {
+                if (seen == null) seen = new int[LINEAR_DISTINCT_LIMIT * 2];
+                seen[seenCount * 2] = valueFrom;
+                seen[seenCount * 2 + 1] = valueTo;
+                seenCount++;
+            }
+            if (isBlank(line, valueFrom, valueTo)) {
+                values.add("");
+                continue;
+            }
+            // same as value.split(":") having more than one element
+            final int colon = indexOf(line, ':', valueFrom, valueTo);
+            boolean hasId = false;
+            for (int j = colon + 1; colon >= 0 && j < valueTo && !hasId; j++) {
+                hasId = line[j] != ':';
+            }
+            if (hasId && !isBlank(line, valueFrom, colon)) {
+                // id:value is a slice of the line already
+                final int nextColon = indexOf(line, ':', colon + 1, valueTo);
+                values.add(new String(line, valueFrom, (nextColon >= 0 ? nextColon : valueTo) - valueFrom));
+                keyChars = line;
+                keyFrom = valueFrom;
+                keyTo = colon;
+                continue;
+            }
+            if (keyChars == null || isBlank(keyChars, keyFrom, keyTo)) {
+                // value itself without colons is the id
+                keyChars = new char[valueTo - valueFrom];
+                keyFrom = 0;
+                keyTo = 0;
+                for (int j = valueFrom; j < valueTo; j++) {
+                    if (line[j] != ':') keyChars[keyTo++] = line[j];
+                }
+            }
+            final int nextColon = hasId ? indexOf(line, ':', colon + 1, valueTo) : -1;
+            final int resolvedFrom = hasId ? colon + 1 : valueFrom;
+            final int resolvedTo = hasId ? (nextColon >= 0 ? nextColon : valueTo) : valueTo;
+            final int size = keyTo - keyFrom + 1 + resolvedTo - resolvedFrom;
+            if (buffer == null || buffer.length < size) buffer = new char[Math.max(size, 64)];
+            System.arraycopy(keyChars, keyFrom, buffer, 0, keyTo - keyFrom);
+            buffer[keyTo - keyFrom] = ':';
+            System.arraycopy(line, resolvedFrom, buffer, keyTo - keyFrom + 1, resolvedTo - resolvedFrom);
+            values.add(new String(buffer, 0, size));
+        }
+    }
+
+    private static boolean isSeen(final char[] line, final int[] seen, final int seenCount, final int from, final int to) {
+        for (int j = 0; j < seenCount; j++) {
+            final int seenFrom = seen[j * 2];
+            if (seen[j * 2 + 1] - seenFrom != to - from) continue;
+            int k = 0;
+            while (k < to - from && line[seenFrom + k] == line[from + k]) k++;
+            if (k == to - from) return true;
+        }
+        return false;
+    }
+
+    private static int indexOfBracket(final char[] chars, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] == '{' || chars[i] == '}') return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(final char[] chars, final char c, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] == c) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isLineSeparator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+    }
+
+    private static int indexOfComment(final char[] chars, final int start, final int end) {
+        for (int i = start; i + 1 < end; i++) {
+            if (chars[i] == '/' && chars[i + 1] == '/') return i;
+        }
+        return -1;
+    }
+
+    private static boolean onlyCommentMarkers(final char[] chars, final int start, final int end) {
+        if ((end - start) % 2 != 0) return false;
+        for (int i = start; i < end; i++) {
+            if (chars[i] != '/') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as StringUtils.isBlank on a slice of characters
+     */
+    private static boolean isBlank(final char[] chars, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(chars[i])) return false;
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface LineConsumer {
+        void accept(final char[] chars, final int start, final int end);
+    }
+}
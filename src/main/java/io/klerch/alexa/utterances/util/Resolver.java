@@ -110,21 +110,8 @@ public class Resolver {
     public static List<String> resolveSlotValues(final List<String> values) {
         final List<String> resolvedValues = new ArrayList<>();
         values.forEach(valueLine -> {
-            // hold slot id in case it is defined in order to apply it to all values in the line
-            final AtomicReference<String> valueKey = new AtomicReference<>("");
-            // separate values
-            Arrays.stream(valueLine.replaceAll("[{}]", "").split("[|,;]", -1)).distinct().forEach(value -> {
-                if (StringUtils.isNotBlank(value)) {
-                    final String[] keyValue = value.split(":");
-                    // key as defined otherwise key as defined for preceding value otherwise key is value itself
-                    final String key = keyValue.length > 1 && StringUtils.isNotBlank(keyValue[0]) ? keyValue[0] :
-                            StringUtils.isNotBlank(valueKey.get()) ? valueKey.get() : value.replace(":", "");
-                    valueKey.set(key);
-                    resolvedValues.add(key + ":" + (keyValue.length > 1 ? keyValue[1] : value));
-                } else {
-                    resolvedValues.add("");
-                }
-            });
+            final char[] chars = valueLine.toCharArray();
+            CatalogReader.resolve(chars, 0, chars.length, resolvedValues);
         });
         return resolvedValues;
     }
@@ -154,14 +141,50 @@ public class Resolver {
     public static SlotType resolveSlotType(final String slotTypeName, List<String> values) {
         final SlotType slotType = new SlotType(slotTypeName);
         final Map<String, List<String>> resolvedById = new HashMap<>();
-        values.forEach(value -> {
-            final String[] keyValue = value.split(":");
-            final String key = keyValue[0];
-            final String val = keyValue.length > 1 ? keyValue[1] : key;
-            resolvedById.putIfAbsent(key, new ArrayList<>());
-            resolvedById.get(key).add(val);
-        });
-        resolvedById.forEach(slotType::addValues);
+        if (values instanceof ValuesCatalog) {
+            // ids and values are kept apart in a catalog, so there is nothing to split
+            final ValuesCatalog catalog = (ValuesCatalog) values;
+            for (int i = 0; i < catalog.size(); i++) {
+                final String key = catalog.getId(i);
+                if (key.isEmpty()) {
+                    addResolvedValue(resolvedById, catalog.get(i));
+                    continue;
+                }
+                final String value = catalog.getValue(i);
+                // same as the second element of split(":") on key:value, which is missing if value is nothing but colons
+                final int colon = value.indexOf(':');
+                final boolean hasValue = !StringUtils.containsOnly(value, ':');
+                addResolvedValue(resolvedById, key, hasValue ? (colon >= 0 ? value.substring(0, colon) : value) : key);
+            }
+        } else {
+            values.forEach(value -> addResolvedValue(resolvedById, value));
+        }
+        slotType.addValues(resolvedById);
         return slotType;
     }
-}
\ No newline at end of file
+
+    private static void addResolvedValue(final Map<String, List<String>> resolvedById, final String value) {
+        final String[] keyValue = value.split(":");
+        final String key = keyValue[0];
+        addResolvedValue(resolvedById, key, keyValue.length > 1 ? keyValue[1] : key);
+    }
+
+    /**
+     * Adds a value to the group of its id. Most ids come with one value only, so a group starts as a singleton list and
+     * turns into an array list with its second value. Replacing the group of an existing id keeps the id where it is in
+     * the map.
+     */
+    private static void addResolvedValue(final Map<String, List<String>> resolvedById, final String key, final String value) {
+        final List<String> resolved = resolvedById.get(key);
+        if (resolved == null) {
+            resolvedById.put(key, Collections.singletonList(value));
+        } else if (resolved.size() == 1) {
+            final List<String> group = new ArrayList<>(4);
+            group.add(resolved.get(0));
+            group.add(value);
+            resolvedById.put(key, group);
+        } else {
+            resolved.add(value);
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package io.klerch.alexa.utterances.util;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Validate;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,19 +15,26 @@ import java.util.Scanner;
  */
 public class ResourceReader {
     /**
-     * Looking up value specification file in a given path for a given file key
+     * Looking up value specification file in a given path for a given file key. Values files are read once and then
+     * served from the shared ValuesFileCache as long as they don't change.
      * @param path where to look up for values files
      * @param valueResource file key
-     * @return if file found in path it returns the file content as a list of strings (one element per line)
+     * @return if file found in path it returns the file content as an unmodifiable list of strings (one element per line)
      */
     public static Optional<List<String>> getPlaceholderValueList(final Path path, final String valueResource) {
-        final Path pathToFile = path.resolve(valueResource + ".values");
-        if (Files.exists(pathToFile)) {
-            final File valuesFiles = new File(pathToFile.toUri());
-            Validate.isTrue(valuesFiles.canRead(), "Could not obtain read access to referenced values file " + pathToFile.toAbsolutePath().toString());
-            return Optional.ofNullable(getLines(valuesFiles));
-        }
-        return Optional.empty();
+        return ValuesFileCache.getShared().get(path, valueResource);
+    }
+
+    /**
+     * Looking up value specification file in a given path for a given file key and resolves its values the same way
+     * Resolver.resolveSlotValues does. Values are served from the shared ValuesFileCache as long as the file doesn't
+     * change. A compiled catalog newer than the values file is loaded instead of parsing the values file.
+     * @param path where to look up for values files
+     * @param valueResource file key
+     * @return if file found in path it returns an unmodifiable list of values in the format of key:value
+     */
+    public static Optional<List<String>> getPlaceholderValues(final Path path, final String valueResource) {
+        return ValuesFileCache.getShared().getValues(path, valueResource);
     }
 
     /**
@@ -38,6 +43,23 @@ public class ResourceReader {
      * @return list of strings representing lines in the file
      */
     public static List<String> getLines(final File file) {
+        return Optional.ofNullable(file).flatMap(f -> CatalogReader.readLines(f.toPath())).orElseGet(() -> scanLines(file));
+    }
+
+    /**
+     * Reads values of a values file in the format of key:value. Same as Resolver.resolveSlotValues on getLines but in
+     * one pass.
+     * @param file values file
+     * @return list of values
+     */
+    static List<String> getValues(final File file) {
+        return CatalogReader.readValues(file.toPath()).orElseGet(() -> Resolver.resolveSlotValues(scanLines(file)));
+    }
+
+    /**
+     * Reads file contents line by line with a Scanner. Handles files the one-pass reader leaves alone.
+     */
+    private static List<String> scanLines(final File file) {
         final List<String> lines = new ArrayList<>();
 
         Optional.ofNullable(file).ifPresent(f -> {
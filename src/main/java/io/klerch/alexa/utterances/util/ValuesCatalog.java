@@ -0,0 +1,267 @@
+package io.klerch.alexa.utterances.util;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values of a values file compiled into a binary file (catalog) which is mapped into memory rather than parsed. It holds
+ * a table of distinct ids and values followed by an id and a value per entry, so synonyms share their id. Strings are
+ * decoded on first access only. As the file is mapped read-only, processes loading the same catalog share its pages.
+ * The catalog is a read-only list of values in the format of key:value, the same list Resolver.resolveSlotValues
+ * returns for the values file.
+ * Layout (big-endian): magic, version, size and SHA-256 hash of the values file, number of strings, number of entries,
+ * end offset of each string, id and value string per entry (-1 for an empty entry), UTF-8 string data.
+ */
+public class ValuesCatalog extends AbstractList<String> {
+    /**
+     * File ending of catalogs. A catalog sits next to its values file, e.g. cities.catalog next to cities.values.
+     */
+    public static final String FILE_ENDING = ".catalog";
+    private static final int MAGIC = 0x41554743;
+    private static final int VERSION = 1;
+    private static final int HASH_SIZE = 32;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + HASH_SIZE + 4 + 4;
+    private final ByteBuffer buffer;
+    private final long sourceSize;
+    private final byte[] sourceHash = new byte[HASH_SIZE];
+    private final int numberOfStrings;
+    private final int numberOfEntries;
+    private final int entriesStart;
+    private final int dataStart;
+    /**
+     * Strings decoded so far
+     */
+    private final String[] strings;
+
+    private ValuesCatalog(final ByteBuffer buffer) {
+        Validate.isTrue(buffer.capacity() >= HEADER_SIZE && buffer.getInt(0) == MAGIC, "Not a values catalog.");
+        Validate.isTrue(buffer.getInt(4) == VERSION, "Unsupported version of values catalog.");
+        this.buffer = buffer;
+        this.sourceSize = buffer.getLong(8);
+        for (int i = 0; i < HASH_SIZE; i++) sourceHash[i] = buffer.get(16 + i);
+        this.numberOfStrings = buffer.getInt(16 + HASH_SIZE);
+        this.numberOfEntries = buffer.getInt(20 + HASH_SIZE);
+        Validate.isTrue(numberOfStrings >= 0 && numberOfEntries >= 0, "Values catalog is corrupt.");
+        this.entriesStart = HEADER_SIZE + 4 * numberOfStrings;
+        this.dataStart = entriesStart + 8 * numberOfEntries;
+        Validate.isTrue(dataStart >= HEADER_SIZE && dataStart <= buffer.capacity(), "Values catalog is corrupt.");
+        // check offsets once, so access never leaves the mapped file
+        int end = 0;
+        for (int i = 0; i < numberOfStrings; i++) {
+            final int next = buffer.getInt(HEADER_SIZE + 4 * i);
+            Validate.isTrue(next >= end, "Values catalog is corrupt.");
+            end = next;
+        }
+        Validate.isTrue(dataStart + (long) end == buffer.capacity(), "Values catalog is corrupt.");
+        for (int i = 0; i < 2 * numberOfEntries; i++) {
+            final int string = buffer.getInt(entriesStart + 4 * i);
+            Validate.isTrue(string >= -1 && string < numberOfStrings, "Values catalog is corrupt.");
+        }
+        this.strings = new String[numberOfStrings];
+    }
+
+    /**
+     * Returns the catalog file belonging to a values file
+     * @param valuesFile values file
+     * @return catalog file next to the values file
+     */
+    public static Path catalogFileOf(final Path valuesFile) {
+        final String name = valuesFile.getFileName().toString();
+        return valuesFile.resolveSibling((name.endsWith(".values") ? name.substring(0, name.length() - ".values".length()) : name) + FILE_ENDING);
+    }
+
+    /**
+     * Compiles a values file into a catalog next to it. An existing catalog is replaced.
+     * @param valuesFile values file
+     * @return catalog file
+     */
+    public static Path compile(final Path valuesFile) {
+        final Path catalogFile = catalogFileOf(valuesFile);
+        final byte[] hash = hash(valuesFile);
+        final long size;
+        try {
+            size = Files.size(valuesFile);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        final List<String> values = ResourceReader.getValues(valuesFile.toFile());
+        // distinct ids and values
+        final Map<String, Integer> index = new HashMap<>();
+        final List<byte[]> data = new ArrayList<>();
+        final int[] entries = new int[2 * values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            final String value = values.get(i);
+            // ids never contain a colon, so the first one separates id and value
+            final int colon = value.indexOf(':');
+            entries[2 * i] = value.isEmpty() ? -1 : index.computeIfAbsent(value.substring(0, colon), string -> add(data, string));
+            entries[2 * i + 1] = value.isEmpty() ? -1 : index.computeIfAbsent(value.substring(colon + 1), string -> add(data, string));
+        }
+        final long dataSize = data.stream().mapToLong(string -> string.length).sum();
+        Validate.isTrue(HEADER_SIZE + 4L * data.size() + 4L * entries.length + dataSize <= Integer.MAX_VALUE, "Values file is too large for a catalog.");
+        final Path temporaryFile = catalogFile.resolveSibling("." + catalogFile.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile, StandardOpenOption.CREATE_NEW), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(size);
+                out.write(hash);
+                out.writeInt(data.size());
+                out.writeInt(values.size());
+                int end = 0;
+                for (final byte[] string : data) {
+                    end += string.length;
+                    out.writeInt(end);
+                }
+                for (final int entry : entries) out.writeInt(entry);
+                for (final byte[] string : data) out.write(string);
+            }
+            try {
+                Files.move(temporaryFile, catalogFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (final IOException e1) {
+                temporaryFile.toFile().deleteOnExit();
+            }
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+        }
+        return catalogFile;
+    }
+
+    private static int add(final List<byte[]> data, final String string) {
+        data.add(string.getBytes(StandardCharsets.UTF_8));
+        return data.size() - 1;
+    }
+
+    private static byte[] hash(final Path file) {
+        try (final InputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            final byte[] bytes = new byte[1 << 16];
+            while (in.read(bytes) >= 0) {
+                // digest is updated while reading
+            }
+            return ((DigestInputStream) in).getMessageDigest().digest();
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Maps a catalog into memory
+     * @param catalogFile catalog file
+     * @return catalog
+     * @throws IllegalArgumentException if the file is not a catalog of this version or corrupt
+     */
+    public static ValuesCatalog load(final Path catalogFile) {
+        try (final FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+            Validate.isTrue(channel.size() <= Integer.MAX_VALUE, "Values catalog is corrupt.");
+            // the mapping stays valid after the channel is closed
+            return new ValuesCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the size of the values file the catalog was compiled from
+     * @return size in bytes
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * Returns the SHA-256 hash of the values file the catalog was compiled from
+     * @return hash
+     */
+    public byte[] getSourceHash() {
+        return sourceHash.clone();
+    }
+
+    /**
+     * Returns the size of the catalog file
+     * @return size in bytes
+     */
+    public long getFileSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns a value in the format of key:value
+     * @param index position of the value
+     * @return value or an empty string for an empty value
+     */
+    @Override
+    public String get(final int index) {
+        if (index < 0 || index >= numberOfEntries) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numberOfEntries);
+        final int id = buffer.getInt(entriesStart + 8 * index);
+        return id < 0 ? "" : string(id) + ":" + string(buffer.getInt(entriesStart + 8 * index + 4));
+    }
+
+    /**
+     * Returns the id of a value
+     * @param index position of the value
+     * @return id or an empty string for an empty value
+     */
+    public String getId(final int index) {
+        if (index < 0 || index >= numberOfEntries) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numberOfEntries);
+        final int id = buffer.getInt(entriesStart + 8 * index);
+        return id < 0 ? "" : string(id);
+    }
+
+    /**
+     * Returns a value without its id
+     * @param index position of the value
+     * @return value or an empty string for an empty value
+     */
+    public String getValue(final int index) {
+        if (index < 0 || index >= numberOfEntries) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numberOfEntries);
+        final int value = buffer.getInt(entriesStart + 8 * index + 4);
+        return value < 0 ? "" : string(value);
+    }
+
+    private String string(final int index) {
+        String string = strings[index];
+        if (string == null) {
+            final int start = index == 0 ? 0 : buffer.getInt(HEADER_SIZE + 4 * (index - 1));
+            final int end = buffer.getInt(HEADER_SIZE + 4 * index);
+            final byte[] bytes = new byte[end - start];
+            // absolute reads on a duplicate keep the catalog safe to read from several threads
+            final ByteBuffer slice = buffer.duplicate();
+            slice.position(dataStart + start);
+            slice.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    @Override
+    public int size() {
+        return numberOfEntries;
+    }
+}
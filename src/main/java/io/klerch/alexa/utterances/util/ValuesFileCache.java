@@ -0,0 +1,335 @@
+package io.klerch.alexa.utterances.util;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps lines and resolved values of values files in memory, so the same values file is read only once no matter how
+ * many generators refer to it. Files are looked up in a listing of their folder rather than probing the file system for
+ * each placeholder. Cached lines and values are used as long as modification time and size of the file are unchanged,
+ * a folder is listed again once its modification time changes. Values come from a compiled catalog (see ValuesCatalog)
+ * instead of the values file if the catalog is newer. Least recently used files are dropped when the cache exceeds its
+ * size. The cache is safe to use from several generators at once.
+ */
+public class ValuesFileCache {
+    private static final ValuesFileCache SHARED = new ValuesFileCache(Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4));
+    /**
+     * Folders changed more recently than this are listed again on every lookup, as their modification time might not
+     * catch a change made within the same tick
+     */
+    private static final long SETTLE_MILLIS = 2000;
+    /**
+     * Estimated bytes of a line in memory on top of its characters: string and array headers plus list slot
+     */
+    private static final long LINE_OVERHEAD = 48;
+    private final Map<Path, Listing> listings = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * New cache
+     * @param maxBytes maximum estimated size of all cached lines in memory. Larger files are read but never cached.
+     */
+    public ValuesFileCache(final long maxBytes) {
+        Validate.isTrue(maxBytes >= 0, "Maximum size of values file cache must not be negative.");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache shared by all generators. It takes up to 256 MB or a quarter of the maximum heap size if
+     * that is less.
+     * @return shared cache
+     */
+    public static ValuesFileCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the lines of a values file without comments and blank lines. Lines are read from disk only if the file is
+     * not cached or changed since.
+     * @param directory where to look up values files
+     * @param name file key. The file name is the key followed by .values
+     * @return unmodifiable list of lines or empty if there is no such values file
+     */
+    public Optional<List<String>> get(final Path directory, final String name) {
+        return get(directory, name, false);
+    }
+
+    /**
+     * Returns the values of a values file in the format of key:value as Resolver.resolveSlotValues resolves them. Values
+     * are read from disk only if the file is not cached or changed since.
+     * @param directory where to look up values files
+     * @param name file key. The file name is the key followed by .values
+     * @return unmodifiable list of values or empty if there is no such values file
+     */
+    public Optional<List<String>> getValues(final Path directory, final String name) {
+        return get(directory, name, true);
+    }
+
+    private Optional<List<String>> get(final Path directory, final String name, final boolean values) {
+        final Path file = directory.resolve(name + ".values");
+        if (!exists(directory, name, file)) return Optional.empty();
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (final NoSuchFileException e) {
+            return Optional.empty();
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        final Path key = file.toAbsolutePath().normalize();
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            final List<String> cached = entry != null && entry.isCurrent(attributes) ? entry.get(values) : null;
+            if (cached != null) {
+                hits++;
+                return Optional.of(cached);
+            }
+            misses++;
+        }
+        // read outside the lock, so other files can be served meanwhile
+        Validate.isTrue(file.toFile().canRead(), "Could not obtain read access to referenced values file " + file.toAbsolutePath().toString());
+        final Optional<ValuesCatalog> catalog = values ? catalog(directory, name, file, attributes) : Optional.empty();
+        final List<String> lines = catalog.isPresent() ? catalog.get() :
+                Collections.unmodifiableList(values ? ResourceReader.getValues(file.toFile()) : ResourceReader.getLines(file.toFile()));
+        put(key, attributes, values, lines, catalog.map(ValuesCatalog::getFileSize).orElse(-1L));
+        return Optional.of(lines);
+    }
+
+    /**
+     * Loads the catalog compiled from a values file unless it is older than the values file
+     */
+    private Optional<ValuesCatalog> catalog(final Path directory, final String name, final Path file, final BasicFileAttributes attributes) {
+        final Path catalogFile = ValuesCatalog.catalogFileOf(file);
+        if (!listed(directory, name + ValuesCatalog.FILE_ENDING, catalogFile)) return Optional.empty();
+        try {
+            if (Files.getLastModifiedTime(catalogFile).compareTo(attributes.lastModifiedTime()) <= 0) return Optional.empty();
+            final ValuesCatalog catalog = ValuesCatalog.load(catalogFile);
+            return catalog.getSourceSize() == attributes.size() ? Optional.of(catalog) : Optional.empty();
+        } catch (final IOException | IllegalArgumentException e) {
+            // missing, corrupt or from another version, so read the values file instead
+            return Optional.empty();
+        }
+    }
+
+    private boolean exists(final Path directory, final String name, final Path file) {
+        return listed(directory, name + ".values", file);
+    }
+
+    /**
+     * Looks up a values file or catalog in the listing of its folder. Names pointing into subfolders are probed on disk.
+     * The listing is compared case-insensitively and only names also matching that way are probed on disk, so misses
+     * stay cheap while file systems ignoring case still find files named in another case.
+     */
+    private boolean listed(final Path directory, final String fileName, final Path file) {
+        if (fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0) return Files.exists(file);
+        final Path folder = directory.toAbsolutePath().normalize();
+        final FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(folder);
+        } catch (final IOException e) {
+            // folder does not exist
+            return false;
+        }
+        Listing listing = listings.get(folder);
+        if (listing == null || !listing.isCurrent(modified)) {
+            listing = Listing.of(folder, modified);
+            listings.put(folder, listing);
+        }
+        if (listing.names.contains(fileName)) return true;
+        return listing.foldedNames.contains(fileName.toLowerCase(Locale.ROOT)) && Files.exists(file);
+    }
+
+    /**
+     * Keeps lines or values of a file
+     * @param size estimated size in memory or -1 to estimate it from the strings
+     */
+    private synchronized void put(final Path key, final BasicFileAttributes attributes, final boolean values, final List<String> lines, final long size) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.isCurrent(attributes)) {
+            if (entry != null) bytes -= entry.bytes;
+            entry = new Entry(attributes.lastModifiedTime(), attributes.size());
+            entries.put(key, entry);
+        }
+        bytes += entry.set(values, lines, size);
+        // files larger than the whole cache are not kept
+        if (entry.bytes > maxBytes) {
+            entries.remove(key);
+            bytes -= entry.bytes;
+            return;
+        }
+        evict();
+    }
+
+    private void evict() {
+        final Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Sets the maximum estimated size of all cached lines in memory and drops least recently used files if necessary
+     * @param maxBytes maximum size in bytes
+     */
+    public synchronized void setMaxBytes(final long maxBytes) {
+        Validate.isTrue(maxBytes >= 0, "Maximum size of values file cache must not be negative.");
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    /**
+     * Drops all cached files and folder listings. Metrics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        listings.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of lookups served from memory
+     * @return number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which read a values file from disk
+     * @return number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of files dropped to stay within the maximum size
+     * @return number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the estimated size of all cached lines in memory
+     * @return size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of cached files
+     * @return number of files
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Lines and resolved values of a values file as of a modification time and size
+     */
+    private static class Entry {
+        private final FileTime modified;
+        private final long size;
+        private List<String> lines;
+        private List<String> values;
+        private long bytes;
+
+        private Entry(final FileTime modified, final long size) {
+            this.modified = modified;
+            this.size = size;
+        }
+
+        private boolean isCurrent(final BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+
+        private List<String> get(final boolean values) {
+            return values ? this.values : this.lines;
+        }
+
+        /**
+         * Keeps lines or values unless already kept
+         * @param size estimated size in memory or -1 to estimate it from the strings
+         * @return number of bytes added
+         */
+        private long set(final boolean values, final List<String> list, final long size) {
+            if (get(values) != null) return 0;
+            if (values) {
+                this.values = list;
+            } else {
+                this.lines = list;
+            }
+            final long added = size >= 0 ? size : list.stream().mapToLong(line -> LINE_OVERHEAD + 2L * line.length()).sum();
+            bytes += added;
+            return added;
+        }
+    }
+
+    /**
+     * Names of values files in a folder as of a modification time of the folder
+     */
+    private static class Listing {
+        private final FileTime modified;
+        private final long listedAt;
+        private final Set<String> names;
+        private final Set<String> foldedNames;
+
+        private Listing(final FileTime modified, final long listedAt, final Set<String> names, final Set<String> foldedNames) {
+            this.modified = modified;
+            this.listedAt = listedAt;
+            this.names = names;
+            this.foldedNames = foldedNames;
+        }
+
+        private static Listing of(final Path folder, final FileTime modified) {
+            final long listedAt = System.currentTimeMillis();
+            final Set<String> names = new HashSet<>();
+            final Set<String> foldedNames = new HashSet<>();
+            // extensions are matched ignoring case as well, as globs are case-sensitive on some file systems ignoring case
+            try (final DirectoryStream<Path> files = Files.newDirectoryStream(folder, file -> isListed(file.getFileName().toString()))) {
+                files.forEach(file -> {
+                    names.add(file.getFileName().toString());
+                    foldedNames.add(file.getFileName().toString().toLowerCase(Locale.ROOT));
+                });
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+            return new Listing(modified, listedAt, names, foldedNames);
+        }
+
+        private static boolean isListed(final String fileName) {
+            final String folded = fileName.toLowerCase(Locale.ROOT);
+            return folded.endsWith(".values") || folded.endsWith(".catalog");
+        }
+
+        private boolean isCurrent(final FileTime modified) {
+            return this.modified.equals(modified) && listedAt - modified.toMillis() > SETTLE_MILLIS;
+        }
+    }
+}
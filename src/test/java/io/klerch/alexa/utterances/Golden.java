@@ -0,0 +1,52 @@
+package io.klerch.alexa.utterances;
+
+import io.klerch.alexa.utterances.util.ResourceReader;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Grammar in the test resources together with the output the original generator produced for it
+ */
+public final class Golden {
+    private Golden() {
+    }
+
+    /**
+     * Returns the folder holding the grammar, its values files and the expected output
+     * @return folder of the golden files
+     */
+    public static Path folder() {
+        try {
+            return Paths.get(Golden.class.getResource("/golden").toURI());
+        } catch (final URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the grammar line by line
+     * @return lines of the golden grammar
+     */
+    public static List<String> grammar() {
+        return ResourceReader.getLines(folder().resolve("golden.grammar").toFile());
+    }
+
+    /**
+     * Returns the expected output with line breaks of the current system
+     * @param name file name of the expected output
+     * @return expected output
+     */
+    public static String expected(final String name) {
+        try {
+            return new String(Files.readAllBytes(folder().resolve(name)), StandardCharsets.UTF_8).replace("\n", System.lineSeparator());
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
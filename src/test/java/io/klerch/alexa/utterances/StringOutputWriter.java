@@ -0,0 +1,29 @@
+package io.klerch.alexa.utterances;
+
+import io.klerch.alexa.utterances.model.Generation;
+import io.klerch.alexa.utterances.output.OutputWriter;
+
+/**
+ * Keeps output of the generator in memory, so tests can compare it
+ */
+public class StringOutputWriter implements OutputWriter {
+    private String output;
+
+    @Override
+    public OutputWriter beVerbose(final boolean verbose) {
+        return this;
+    }
+
+    @Override
+    public void print(final String output, final Generation generation) {
+        this.output = output;
+    }
+
+    /**
+     * Returns the latest output
+     * @return output or null if nothing was printed yet
+     */
+    public String getOutput() {
+        return output;
+    }
+}
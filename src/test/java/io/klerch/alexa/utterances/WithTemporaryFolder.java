@@ -0,0 +1,41 @@
+package io.klerch.alexa.utterances;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Base class for tests working on files. Each test gets an empty folder which is deleted with all its content afterwards.
+ */
+public abstract class WithTemporaryFolder {
+    protected Path folder;
+
+    @BeforeEach
+    void createFolder() throws IOException {
+        folder = Files.createTempDirectory(getClass().getSimpleName());
+    }
+
+    @AfterEach
+    void deleteFolder() throws IOException {
+        try (final Stream<Path> files = Files.walk(folder)) {
+            for (final Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes a file to the folder in the default charset
+     * @param name file name
+     * @param content file content
+     * @return written file
+     * @throws IOException in case writing fails
+     */
+    protected Path write(final String name, final String content) throws IOException {
+        return Files.write(folder.resolve(name), content.getBytes(Charset.defaultCharset()));
+    }
+}
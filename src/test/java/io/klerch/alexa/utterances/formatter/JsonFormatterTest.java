@@ -0,0 +1,49 @@
+package io.klerch.alexa.utterances.formatter;
+
+import io.klerch.alexa.utterances.Golden;
+import io.klerch.alexa.utterances.StringOutputWriter;
+import io.klerch.alexa.utterances.WithTemporaryFolder;
+import io.klerch.alexa.utterances.output.FileOutputWriter;
+import io.klerch.alexa.utterances.processor.Generator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonFormatterTest extends WithTemporaryFolder {
+    @Test
+    void printsGoldenOutput() {
+        for (final boolean compact : new boolean[] { false, true }) {
+            final StringOutputWriter output = new StringOutputWriter();
+            generate(JsonFormatter.create(output).compact(compact).build());
+            assertEquals(expected(compact), output.getOutput());
+        }
+    }
+
+    @Test
+    void streamsGoldenOutputIntoFile() throws IOException {
+        for (final boolean compact : new boolean[] { false, true }) {
+            for (final boolean cacheFragments : new boolean[] { false, true }) {
+                final Path file = folder.resolve("schema-" + compact + "-" + cacheFragments + ".json");
+                final JsonFormatter formatter = JsonFormatter.create(new FileOutputWriter(file.toFile())).compact(compact).cacheFragments(cacheFragments).build();
+                // the second generation reuses cached fragments of the first one
+                for (int i = 0; i < 2; i++) {
+                    generate(formatter);
+                    assertEquals(expected(compact), new String(Files.readAllBytes(file), Charset.defaultCharset()), file.getFileName().toString());
+                }
+            }
+        }
+    }
+
+    private static String expected(final boolean compact) {
+        return Golden.expected(compact ? "golden-compact.json" : "golden.json");
+    }
+
+    private static void generate(final Formatter formatter) {
+        Generator.create().withValuesFilePath(Golden.folder()).withFormatter(formatter).build().generate(Golden.grammar()).close();
+    }
+}
@@ -0,0 +1,104 @@
+package io.klerch.alexa.utterances.formatter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.klerch.alexa.utterances.Golden;
+import io.klerch.alexa.utterances.StringOutputWriter;
+import io.klerch.alexa.utterances.WithTemporaryFolder;
+import io.klerch.alexa.utterances.output.FileOutputWriter;
+import io.klerch.alexa.utterances.processor.Generator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedJsonFormatterTest extends WithTemporaryFolder {
+    private static final List<String> GRAMMAR = Arrays.asList(
+            "Invocation: shard test",
+            "TicketIntent: {\u6211\u60f3|\u6211\u8981|\u8bf7} {\u9884\u8ba2|\u8ba2\u8d2d|\u4e70} {\u4e00\u5f20|\u4e24\u5f20|\u4e09\u5f20} {\u706b\u8f66\u7968|\u673a\u7968|\u7535\u5f71\u7968} \u53bb {{city:City}}",
+            "QuoteIntent: say {\"hello\"|back\\slash|tab\there} {one|two|three|four|five} {a|b|c|d} {{number:AMAZON.NUMBER}}",
+            "SmallIntent: hello",
+            "{City}: \u5317\u4eac, \u4e0a\u6d77, \u5e7f\u5dde, \u6df1\u5733",
+            "{Color}: red, green, blue");
+
+    @Test
+    void shardsDoNotExceedMaxBytes() throws IOException {
+        for (final long maxShardBytes : new long[] { 400, 1000, 5000 }) {
+            final JsonNode manifest = writeShards(folder.resolve("shards-" + maxShardBytes), maxShardBytes, false);
+            for (final JsonNode shard : manifest.path("shards")) {
+                final long bytes = shard.path("bytes").asLong();
+                assertTrue(bytes <= maxShardBytes, shard.path("file").asText() + " has " + bytes + " bytes");
+                assertEquals(Files.size(folder.resolve("shards-" + maxShardBytes).resolve(shard.path("file").asText())), bytes);
+            }
+        }
+    }
+
+    @Test
+    void reassembledShardsMatchJsonFormatter() throws IOException {
+        for (final boolean shardByIntent : new boolean[] { false, true }) {
+            final Path directory = folder.resolve("shards-" + shardByIntent);
+            writeShards(directory, 1000, shardByIntent);
+            for (final boolean compact : new boolean[] { false, true }) {
+                final StringWriter reassembled = new StringWriter();
+                ShardedJsonReader.reassemble(folder.resolve("manifest.json"), directory, reassembled, compact);
+                assertEquals(generate(compact), reassembled.toString());
+            }
+        }
+    }
+
+    @Test
+    void reassembledShardsMatchGoldenOutput() throws IOException {
+        for (final boolean shardByIntent : new boolean[] { false, true }) {
+            final Path manifestFile = folder.resolve("golden-" + shardByIntent + ".json");
+            Generator.create()
+                    .withValuesFilePath(Golden.folder())
+                    .withFormatter(ShardedJsonFormatter.create(new FileOutputWriter(manifestFile.toFile()), folder.resolve("golden-shards-" + shardByIntent)).withMaxShardBytes(500).shardByIntent(shardByIntent).build())
+                    .build().generate(Golden.grammar()).close();
+            for (final boolean compact : new boolean[] { false, true }) {
+                final StringWriter reassembled = new StringWriter();
+                ShardedJsonReader.reassemble(manifestFile, reassembled, compact);
+                assertEquals(Golden.expected(compact ? "golden-compact.json" : "golden.json"), reassembled.toString());
+            }
+        }
+    }
+
+    @Test
+    void shardsMoveTogetherWithManifest() throws IOException {
+        final Path manifestFile = folder.resolve("out").resolve("manifest.json");
+        Files.createDirectories(manifestFile.getParent());
+        Generator.create()
+                .withValuesFilePath(folder)
+                .withFormatter(ShardedJsonFormatter.create(new FileOutputWriter(manifestFile.toFile()), manifestFile.resolveSibling("shards")).withMaxShardBytes(1000).build())
+                .build().generate(GRAMMAR);
+        assertEquals("shards", new ObjectMapper().readTree(manifestFile.toFile()).path("directory").asText());
+
+        final Path moved = Files.move(folder.resolve("out"), folder.resolve("moved"));
+        final StringWriter reassembled = new StringWriter();
+        ShardedJsonReader.reassemble(moved.resolve("manifest.json"), reassembled, false);
+        assertEquals(generate(false), reassembled.toString());
+    }
+
+    private JsonNode writeShards(final Path directory, final long maxShardBytes, final boolean shardByIntent) throws IOException {
+        final StringOutputWriter manifest = new StringOutputWriter();
+        Generator.create()
+                .withValuesFilePath(folder)
+                .withFormatter(ShardedJsonFormatter.create(manifest, directory).withMaxShardBytes(maxShardBytes).shardByIntent(shardByIntent).withParallelism(2).build())
+                .build().generate(GRAMMAR);
+        Files.write(folder.resolve("manifest.json"), manifest.getOutput().getBytes(StandardCharsets.UTF_8));
+        return new ObjectMapper().readTree(manifest.getOutput());
+    }
+
+    private String generate(final boolean compact) {
+        final StringOutputWriter output = new StringOutputWriter();
+        Generator.create().withValuesFilePath(folder).withFormatter(JsonFormatter.create(output).compact(compact).build()).build().generate(GRAMMAR);
+        return output.getOutput();
+    }
+}
@@ -0,0 +1,47 @@
+package io.klerch.alexa.utterances.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentTest {
+    private static final List<Supplier<SampleStore>> STORES = Arrays.asList(ListSampleStore::new, TrieSampleStore::new, () -> new SpillingSampleStore(3));
+
+    @Test
+    void samplesAreUnmodifiableForEveryStore() {
+        for (final Supplier<SampleStore> store : STORES) {
+            final Intent intent = new Intent("MyIntent", store.get());
+            intent.addSample("b");
+            intent.addSample("a");
+            intent.addSample("c");
+            intent.setFingerprint(42);
+            assertThrows(UnsupportedOperationException.class, () -> intent.getSamples().add("d"));
+            assertThrows(UnsupportedOperationException.class, () -> intent.getSamples().remove(0));
+            assertEquals(42, intent.getFingerprint());
+            intent.close();
+        }
+    }
+
+    @Test
+    void changesThroughIntentKeepStoreConsistent() {
+        for (final Supplier<SampleStore> store : STORES) {
+            final Intent intent = new Intent("MyIntent", store.get());
+            intent.addSample("b");
+            intent.addSample("a");
+            intent.setFingerprint(42);
+            assertFalse(intent.addUniqueSample("a"));
+            assertEquals(0, intent.getFingerprint());
+            assertTrue(intent.addUniqueSample("c"));
+            intent.deduplicateAndSortSamples();
+            assertEquals(Arrays.asList("a", "b", "c"), intent.getSamples());
+            intent.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.klerch.alexa.utterances.processor;
+
+import io.klerch.alexa.utterances.Golden;
+import io.klerch.alexa.utterances.StringOutputWriter;
+import io.klerch.alexa.utterances.formatter.JsonFormatter;
+import io.klerch.alexa.utterances.model.Generation;
+import io.klerch.alexa.utterances.model.Intent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class GeneratorTest {
+    @Test
+    void generatesGoldenOutput() {
+        for (final int parallelism : new int[] { 1, 4 }) {
+            final StringOutputWriter output = new StringOutputWriter();
+            Generator.create()
+                    .withValuesFilePath(Golden.folder())
+                    .withFormatter(JsonFormatter.create(output).build())
+                    .withParallelism(parallelism)
+                    .build().generate(Golden.grammar()).close();
+            assertEquals(Golden.expected("golden.json"), output.getOutput(), "parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    void fingerprintDoesNotDependOnSymbolIds() {
+        // the other intent gets its literals and values interned first, so symbol ids of MyIntent differ
+        final long fingerprint = fingerprint(Arrays.asList("OtherIntent: world {hello|x}", "MyIntent: hello {x|world}"));
+        assertEquals(fingerprint, fingerprint(Arrays.asList("MyIntent: hello {x|world}")));
+        assertNotEquals(fingerprint, fingerprint(Arrays.asList("MyIntent: hello {x|world|y}")));
+    }
+
+    private static long fingerprint(final List<String> grammar) {
+        try (final Generation generation = Generator.create().withFormatter(JsonFormatter.create(new StringOutputWriter()).build()).build().generate(grammar)) {
+            return generation.getModel().getModel().getIntents().stream()
+                    .filter(intent -> intent.getName().equals("MyIntent"))
+                    .mapToLong(Intent::getFingerprint)
+                    .findFirst().orElse(0);
+        }
+    }
+}
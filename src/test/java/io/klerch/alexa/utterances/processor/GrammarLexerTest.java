@@ -0,0 +1,154 @@
+package io.klerch.alexa.utterances.processor;
+
+import io.klerch.alexa.utterances.util.Resolver;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GrammarLexerTest {
+    private static final List<String> UTTERANCES = Arrays.asList(
+            "book a table",
+            "book a {table|room} {please|}",
+            "{|please} {bookingAction} {|me} a {{item:bookingItem}}",
+            "from {{from:AMAZON.US_CITY|fromEU:AMAZON.EUROPE_CITY}} to {{to:AMAZON.US_CITY}}",
+            "{{a:A}}{{b:B}}",
+            "{{{a}}",
+            "{a} and {} and {ab}",
+            "{ab",
+            "ab}",
+            "{{ab}",
+            "{{ab}} {cd} {{ef}}",
+            "{ab}{{cd}}",
+            "{{ab}}}",
+            "a {b|c}}");
+
+    private static final List<String> LINES = Arrays.asList(
+            "Invocation: my skill",
+            "INVOCATION:hello",
+            "invocation:",
+            "MyIntent: book a {room|table}",
+            "MyIntent:",
+            "  MyIntent: hi there // comment",
+            "AMAZON.HelpIntent: help",
+            "{Type}: a, b",
+            "{Type}:",
+            "{Type}:: a",
+            "{{slot:Type}} please",
+            "just a continuation",
+            "a{b}: c",
+            "Intent: {x}: y",
+            "x: y: z",
+            "// comment",
+            "//",
+            "   ",
+            "hello // world // again",
+            "My Intent: x",
+            "{my type}: a",
+            "{}: a");
+
+    @Test
+    void tokenizeFindsSlotsAndVariantsOfPatterns() {
+        for (final String utterance : UTTERANCES) {
+            final List<GrammarLexer.Token> tokens = GrammarLexer.tokenize(utterance);
+            assertNotNull(tokens, utterance);
+            assertEquals(utterance, tokens.stream().map(GrammarLexer.Token::getText).collect(Collectors.joining()), utterance);
+            assertEquals(slotsOf(utterance), textsOf(tokens, GrammarLexer.TokenType.SLOT), utterance);
+            assertEquals(variantsOf(utterance), textsOf(tokens, GrammarLexer.TokenType.VARIANT), utterance);
+        }
+    }
+
+    @Test
+    void tokenizeLeavesIrregularUtterancesToPatterns() {
+        // a variant running into a slot
+        assertNull(GrammarLexer.tokenize("{x{{a}}"));
+        assertNull(GrammarLexer.tokenize("{xy {{a}}"));
+        // looks like a substituted placeholder
+        assertNull(GrammarLexer.tokenize("{!"));
+        assertNull(GrammarLexer.tokenize("a {!b} c"));
+        assertNull(GrammarLexer.tokenize("a\nb"));
+    }
+
+    @Test
+    void tokenizeTakesSlotWithLeadingBracket() {
+        final List<GrammarLexer.Token> tokens = GrammarLexer.tokenize("{{{a}}");
+        assertNotNull(tokens);
+        assertEquals(1, tokens.size());
+        assertEquals(GrammarLexer.TokenType.SLOT, tokens.get(0).getType());
+        assertEquals("{{{a}}", tokens.get(0).getText());
+    }
+
+    @Test
+    void classifyMatchesResolver() {
+        for (final String line : LINES) {
+            assertEquals(classifyWithResolver(line), classifyWithLexer(line), line);
+        }
+    }
+
+    @Test
+    void linesSplitsLikeScanner() {
+        final List<String> lines = GrammarLexer.lines(new StringReader("a\nb\r\nc\rd\u0085e\n\nf\n")).collect(Collectors.toList());
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e", "", "f"), lines);
+    }
+
+    private static List<String> textsOf(final List<GrammarLexer.Token> tokens, final GrammarLexer.TokenType type) {
+        return tokens.stream().filter(token -> token.getType() == type).map(GrammarLexer.Token::getText).collect(Collectors.toList());
+    }
+
+    private static List<String> slotsOf(final String utterance) {
+        final List<String> slots = new ArrayList<>();
+        final Matcher matcher = Resolver.slotInUtteranceDefinition.matcher(utterance);
+        while (matcher.find()) slots.add(matcher.group(1));
+        return slots;
+    }
+
+    /**
+     * Variants the pattern finds once slots are substituted like the Generator did before it had a lexer
+     */
+    private static List<String> variantsOf(final String utterance) {
+        final Matcher slots = Resolver.slotInUtteranceDefinition.matcher(utterance);
+        final StringBuffer substituted = new StringBuffer();
+        for (int i = 0; slots.find(); i++) slots.appendReplacement(substituted, "{!" + i + "}");
+        slots.appendTail(substituted);
+        final List<String> variants = new ArrayList<>();
+        final Matcher matcher = Resolver.placeholderInUtteranceExcludingResolved.matcher(substituted);
+        while (matcher.find()) variants.add(matcher.group());
+        return variants;
+    }
+
+    private static String classifyWithLexer(final String line) {
+        try {
+            final GrammarLexer.Line classified = GrammarLexer.classify(line);
+            return classified == null ? null : classified.getScope() + " " + classified.getKey() + " " + classified.getValue();
+        } catch (final RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private static String classifyWithResolver(final String rawLine) {
+        final int comment = rawLine.indexOf("//");
+        final String line = (comment < 0 ? rawLine : rawLine.substring(0, comment)).trim();
+        if (line.isEmpty()) return null;
+        try {
+            final Optional<ImmutablePair<String, String>> invocation = Resolver.resolveInvocationDefinition(line);
+            final Optional<ImmutablePair<String, String>> intent = Resolver.resolveIntentDefinition(line);
+            final Optional<ImmutablePair<String, String>> slotType = Resolver.resolveSlotTypeDefinition(line);
+            if (invocation.isPresent()) return GeneratorScope.INVOCATION + " " + invocation.get().left + " " + invocation.get().right;
+            if (intent.isPresent()) return GeneratorScope.INTENT + " " + intent.get().left + " " + intent.get().right;
+            if (slotType.isPresent()) return GeneratorScope.PLACEHOLDER + " " + slotType.get().left + " " + slotType.get().right;
+            return "null null " + line;
+        } catch (final RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+}
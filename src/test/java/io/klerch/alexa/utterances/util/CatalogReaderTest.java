@@ -0,0 +1,98 @@
+package io.klerch.alexa.utterances.util;
+
+import io.klerch.alexa.utterances.WithTemporaryFolder;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogReaderTest extends WithTemporaryFolder {
+    private static final List<String> LINES = Arrays.asList(
+            "value",
+            "id:value",
+            "id:value1|value2, value3;value4",
+            "{a|b}|{c}",
+            "x,,y|",
+            "dup|dup|other|dup",
+            ":no id",
+            "a:b:c",
+            "id::",
+            "  spaced id : spaced value  ",
+            "value // comment",
+            "// comment",
+            "",
+            "   ",
+            "last");
+
+    @Test
+    void readValuesMatchesResolver() throws IOException {
+        final Path file = write("values.values", String.join("\n", LINES));
+        final Optional<List<String>> values = CatalogReader.readValues(file);
+        assertTrue(values.isPresent());
+        assertEquals(Resolver.resolveSlotValues(scan(LINES)), values.get());
+        assertEquals(resolveWithPatterns(scan(LINES)), values.get());
+    }
+
+    @Test
+    void readValuesHandlesLineSeparators() throws IOException {
+        final Path file = write("separators.values", "a\r\nb|c\rd\n\ne\r\n");
+        assertEquals(Resolver.resolveSlotValues(Arrays.asList("a", "b|c", "d", "e")), CatalogReader.readValues(file).orElse(null));
+    }
+
+    @Test
+    void readValuesReadsAcrossChunks() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) lines.add("id" + i + ":value" + i + "|synonym" + i);
+        final Path file = write("large.values", String.join("\n", lines));
+        assertEquals(Resolver.resolveSlotValues(lines), CatalogReader.readValues(file).orElse(null));
+    }
+
+    @Test
+    void readValuesLeavesLinesOfCommentMarkersToScanner() throws IOException {
+        assertFalse(CatalogReader.readValues(write("markers.values", "a\n//\nb")).isPresent());
+    }
+
+    /**
+     * Lines as the Scanner-based reader returns them
+     */
+    private static List<String> scan(final List<String> lines) {
+        final List<String> scanned = new ArrayList<>();
+        for (final String line : lines) {
+            final String withoutComment = line.split("//")[0];
+            if (StringUtils.isNotBlank(withoutComment)) scanned.add(withoutComment);
+        }
+        return scanned;
+    }
+
+    /**
+     * Resolves values with regular expressions like Resolver did before values were resolved in one pass
+     */
+    private static List<String> resolveWithPatterns(final List<String> lines) {
+        final List<String> resolvedValues = new ArrayList<>();
+        lines.forEach(valueLine -> {
+            final AtomicReference<String> valueKey = new AtomicReference<>("");
+            Arrays.stream(valueLine.replaceAll("[{}]", "").split("[|,;]", -1)).distinct().forEach(value -> {
+                if (StringUtils.isNotBlank(value)) {
+                    final String[] keyValue = value.split(":");
+                    final String key = keyValue.length > 1 && StringUtils.isNotBlank(keyValue[0]) ? keyValue[0] :
+                            StringUtils.isNotBlank(valueKey.get()) ? valueKey.get() : value.replace(":", "");
+                    valueKey.set(key);
+                    resolvedValues.add(key + ":" + (keyValue.length > 1 ? keyValue[1] : value));
+                } else {
+                    resolvedValues.add("");
+                }
+            });
+        });
+        return resolvedValues;
+    }
+}
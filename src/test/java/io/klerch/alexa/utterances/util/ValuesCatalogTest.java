@@ -0,0 +1,58 @@
+package io.klerch.alexa.utterances.util;
+
+import io.klerch.alexa.utterances.WithTemporaryFolder;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ValuesCatalogTest extends WithTemporaryFolder {
+    private static final String VALUES = "city:Berlin|Hamburg\nNew York, NYC;Big Apple\n{a|b}\nx,,y\n:no id\nsame:same\nvalue // comment\n\nlast";
+
+    @Test
+    void compiledCatalogLoadsValuesOfValuesFile() throws IOException, NoSuchAlgorithmException {
+        final Path valuesFile = write("cities.values", VALUES);
+        final Path catalogFile = ValuesCatalog.compile(valuesFile);
+        assertEquals(folder.resolve("cities" + ValuesCatalog.FILE_ENDING), catalogFile);
+
+        final ValuesCatalog catalog = ValuesCatalog.load(catalogFile);
+        final List<String> values = ResourceReader.getValues(valuesFile.toFile());
+        assertEquals(values, catalog);
+        for (int i = 0; i < values.size(); i++) {
+            final String value = values.get(i);
+            assertEquals(value.isEmpty() ? "" : value.substring(0, value.indexOf(':')), catalog.getId(i));
+            assertEquals(value.isEmpty() ? "" : value.substring(value.indexOf(':') + 1), catalog.getValue(i));
+        }
+        assertEquals(Files.size(valuesFile), catalog.getSourceSize());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(valuesFile)), catalog.getSourceHash());
+        assertEquals(Files.size(catalogFile), catalog.getFileSize());
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.get(values.size()));
+    }
+
+    @Test
+    void compileReplacesCatalog() throws IOException {
+        final Path valuesFile = write("items.values", "a|b");
+        ValuesCatalog.compile(valuesFile);
+        write("items.values", "c:d");
+        assertEquals(ResourceReader.getValues(valuesFile.toFile()), ValuesCatalog.load(ValuesCatalog.compile(valuesFile)));
+        // no temporary files are left next to the catalog
+        try (final Stream<Path> files = Files.list(folder)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void loadRejectsOtherFiles() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> ValuesCatalog.load(write("empty.catalog", "")));
+        assertThrows(IllegalArgumentException.class, () -> ValuesCatalog.load(write("text.catalog", VALUES)));
+    }
+}